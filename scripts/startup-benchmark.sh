@@ -0,0 +1,79 @@
+#!/usr/bin/env bash
+#
+# Compares time-to-ready and resident memory of two builds of the service.
+#
+#   scripts/startup-benchmark.sh <baseline-jar> <production-jar> [runs]
+#
+# The baseline jar is started with java -jar. The production jar (built with
+# ./mvnw -Pproduction package) is unpacked, trained once to produce a CDS
+# archive and then started with AOT and the archive, as in the Dockerfile.
+# MongoDB must be reachable through SPRING_DATA_MONGODB_HOST/PORT because
+# readiness includes the warm-up check.
+#
+# Each jar is started on its own port (BASELINE_PORT, PRODUCTION_PORT, default
+# 8084) and polled on its own readiness URL (BASELINE_READY_URL,
+# PRODUCTION_READY_URL). Builds without health probes need a different URL,
+# e.g. BASELINE_READY_URL=http://localhost:8084/actuator/health.
+
+set -euo pipefail
+
+BASELINE_JAR=${1:?baseline jar required}
+PRODUCTION_JAR=${2:?production jar required}
+RUNS=${3:-5}
+BASELINE_PORT=${BASELINE_PORT:-8084}
+BASELINE_READY_URL=${BASELINE_READY_URL:-http://localhost:${BASELINE_PORT}/actuator/health/readiness}
+PRODUCTION_PORT=${PRODUCTION_PORT:-8084}
+PRODUCTION_READY_URL=${PRODUCTION_READY_URL:-http://localhost:${PRODUCTION_PORT}/actuator/health/readiness}
+WORK_DIR=$(mktemp -d)
+trap 'rm -rf "${WORK_DIR}"' EXIT
+
+now_ms() {
+    date +%s%3N
+}
+
+measure() {
+    local label=$1 ready_url=$2
+    shift 2
+    local start pid ready rss
+    start=$(now_ms)
+    "$@" > "${WORK_DIR}/${label}.log" 2>&1 &
+    pid=$!
+    until curl -fs "${ready_url}" > /dev/null 2>&1; do
+        if ! kill -0 "${pid}" 2> /dev/null; then
+            echo "${label}: process exited before becoming ready" >&2
+            tail -n 20 "${WORK_DIR}/${label}.log" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    ready=$(( $(now_ms) - start ))
+    rss=$(awk '/VmRSS/ { print $2 }' "/proc/${pid}/status")
+    kill "${pid}"
+    wait "${pid}" 2> /dev/null || true
+    echo "${ready} ${rss}"
+}
+
+report() {
+    local label=$1 ready_url=$2
+    shift 2
+    local total_ready=0 total_rss=0 result
+    for _ in $(seq "${RUNS}"); do
+        result=$(measure "${label}" "${ready_url}" "$@")
+        total_ready=$(( total_ready + ${result% *} ))
+        total_rss=$(( total_rss + ${result#* } ))
+    done
+    printf '%-12s time-to-ready %6d ms   rss %7d KiB   (avg of %d runs)\n' \
+        "${label}" $(( total_ready / RUNS )) $(( total_rss / RUNS )) "${RUNS}"
+}
+
+mkdir -p "${WORK_DIR}/production"
+(cd "${WORK_DIR}/production" && jar -xf "$(realpath "${PRODUCTION_JAR}")")
+PRODUCTION_CP="${WORK_DIR}/production/BOOT-INF/classes:${WORK_DIR}/production/BOOT-INF/lib/*"
+MAIN_CLASS=com.example.shoppingservice.ShoppingServiceApplication
+
+java -XX:ArchiveClassesAtExit="${WORK_DIR}/production.jsa" -Dspring.aot.enabled=true \
+    -Dshopping.lifecycle.training-run=true -cp "${PRODUCTION_CP}" "${MAIN_CLASS}" > "${WORK_DIR}/training.log" 2>&1
+
+report baseline "${BASELINE_READY_URL}" java -Dserver.port="${BASELINE_PORT}" -jar "${BASELINE_JAR}"
+report production "${PRODUCTION_READY_URL}" java -XX:SharedArchiveFile="${WORK_DIR}/production.jsa" \
+    -Dspring.aot.enabled=true -Dserver.port="${PRODUCTION_PORT}" -cp "${PRODUCTION_CP}" "${MAIN_CLASS}"
@@ -0,0 +1,74 @@
+package com.example.shoppingservice.admission;
+
+import com.example.shoppingservice.deadline.DeadlineExceededException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private final long latencyThresholdNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private double limit;
+
+    public AdaptiveConcurrencyLimiter(final AdmissionConfig config) {
+        this.minLimit = config.getMinLimit();
+        this.maxLimit = config.getMaxLimit();
+        this.backoffRatio = config.getBackoffRatio();
+        this.latencyThresholdNanos = config.getLatencyThreshold().toNanos();
+        this.limit = config.getInitialLimit();
+    }
+
+    public boolean tryAcquire(final double share) {
+        int allowed = Math.max(1, (int) (limit() * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(final Duration latency, final boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (dropped || latency.toNanos() > latencyThresholdNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (current * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    static boolean isOverloadFailure(final Throwable failure) {
+        return failure instanceof DeadlineExceededException
+                || !(failure instanceof ResponseStatusException statusException)
+                || statusException.getStatusCode().is5xxServerError();
+    }
+}
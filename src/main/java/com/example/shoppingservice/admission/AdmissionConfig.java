@@ -0,0 +1,26 @@
+package com.example.shoppingservice.admission;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "shopping.admission")
+@Getter
+@Setter
+public class AdmissionConfig {
+
+    private boolean enabled = true;
+    private int initialLimit = 50;
+    private int minLimit = 4;
+    private int maxLimit = 500;
+    private double backoffRatio = 0.9;
+    private Duration latencyThreshold = Duration.ofMillis(500);
+    private Duration retryAfter = Duration.ofSeconds(1);
+    private Map<String, Double> priorities = new HashMap<>();
+}
@@ -0,0 +1,86 @@
+package com.example.shoppingservice.admission;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class AdmissionControlWebFilter implements WebFilter {
+
+    private static final String CART_PATH = "/shopping/cart";
+
+    private static final String EVENTS_SUFFIX = "/events";
+
+    private final AdmissionConfig config;
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private final MeterRegistry meterRegistry;
+
+    public AdmissionControlWebFilter(final AdmissionConfig config, final AdaptiveConcurrencyLimiter limiter,
+                                     final MeterRegistry meterRegistry) {
+        this.config = config;
+        this.limiter = limiter;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("shopping.admission.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+                .register(meterRegistry);
+        Gauge.builder("shopping.admission.inflight", limiter, AdaptiveConcurrencyLimiter::inFlight)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+        String path = exchange.getRequest().getPath().pathWithinApplication().value();
+        if (!config.isEnabled() || !path.startsWith(CART_PATH) || path.endsWith(EVENTS_SUFFIX)) {
+            return chain.filter(exchange);
+        }
+        String method = exchange.getRequest().getMethod().name();
+        if (!limiter.tryAcquire(config.getPriorities().getOrDefault(method, 1.0))) {
+            return reject(exchange, method);
+        }
+        long start = System.nanoTime();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        return chain.filter(exchange)
+                .doOnError(failure::set)
+                .doFinally(signal -> {
+                    if (signal == SignalType.CANCEL) {
+                        limiter.release();
+                    } else {
+                        limiter.release(Duration.ofNanos(System.nanoTime() - start), isDropped(exchange, failure.get()));
+                    }
+                });
+    }
+
+    AdaptiveConcurrencyLimiter limiter() {
+        return limiter;
+    }
+
+    private Mono<Void> reject(final ServerWebExchange exchange, final String method) {
+        meterRegistry.counter("shopping.admission.rejected", "method", method).increment();
+        exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, config.getRetryAfter().toSeconds())));
+        return exchange.getResponse().setComplete();
+    }
+
+    private static boolean isDropped(final ServerWebExchange exchange, final Throwable failure) {
+        if (failure != null) {
+            return AdaptiveConcurrencyLimiter.isOverloadFailure(failure);
+        }
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        return status != null && status.is5xxServerError();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.shoppingservice.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.exceptions.RejectedException;
+import io.rsocket.plugins.RSocketInterceptor;
+import io.rsocket.util.RSocketProxy;
+import lombok.AllArgsConstructor;
+import org.reactivestreams.Publisher;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+@Component
+@AllArgsConstructor
+public class AdmissionRSocketInterceptor implements RSocketInterceptor {
+
+    private static final String PRIORITY = "RSOCKET";
+
+    private final AdmissionConfig config;
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public RSocket apply(final RSocket rsocket) {
+        return new RSocketProxy(rsocket) {
+            @Override
+            public Mono<Void> fireAndForget(final Payload payload) {
+                return admitMono(payload, () -> super.fireAndForget(payload));
+            }
+
+            @Override
+            public Mono<Payload> requestResponse(final Payload payload) {
+                return admitMono(payload, () -> super.requestResponse(payload));
+            }
+
+            @Override
+            public Flux<Payload> requestStream(final Payload payload) {
+                return admit(payload, () -> super.requestStream(payload));
+            }
+
+            @Override
+            public Flux<Payload> requestChannel(final Publisher<Payload> payloads) {
+                return Flux.defer(() -> {
+                    if (!config.isEnabled()) {
+                        return super.requestChannel(payloads);
+                    }
+                    if (!acquire()) {
+                        return Flux.error(rejected());
+                    }
+                    return super.requestChannel(payloads)
+                            .doFinally(signal -> limiter.release());
+                });
+            }
+        };
+    }
+
+    private <T> Flux<T> admit(final Payload payload, final Supplier<Flux<T>> interaction) {
+        return Flux.defer(() -> {
+            if (!config.isEnabled()) {
+                return interaction.get();
+            }
+            if (!acquire()) {
+                payload.release();
+                return Flux.error(rejected());
+            }
+            long start = System.nanoTime();
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            return interaction.get()
+                    .doOnError(failure::set)
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL) {
+                            limiter.release();
+                        } else {
+                            limiter.release(Duration.ofNanos(System.nanoTime() - start),
+                                    failure.get() != null && AdaptiveConcurrencyLimiter.isOverloadFailure(failure.get()));
+                        }
+                    });
+        });
+    }
+
+    private <T> Mono<T> admitMono(final Payload payload, final Supplier<Mono<T>> interaction) {
+        return Mono.defer(() -> {
+            if (!config.isEnabled()) {
+                return interaction.get();
+            }
+            if (!acquire()) {
+                payload.release();
+                return Mono.error(rejected());
+            }
+            long start = System.nanoTime();
+            AtomicBoolean released = new AtomicBoolean();
+            return interaction.get()
+                    .doOnSuccess(value -> {
+                        if (released.compareAndSet(false, true)) {
+                            limiter.release(Duration.ofNanos(System.nanoTime() - start), false);
+                        }
+                    })
+                    .doOnError(error -> {
+                        if (released.compareAndSet(false, true)) {
+                            limiter.release(Duration.ofNanos(System.nanoTime() - start),
+                                    AdaptiveConcurrencyLimiter.isOverloadFailure(error));
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (released.compareAndSet(false, true)) {
+                            limiter.release();
+                        }
+                    });
+        });
+    }
+
+    private boolean acquire() {
+        if (limiter.tryAcquire(config.getPriorities().getOrDefault(PRIORITY, 1.0))) {
+            return true;
+        }
+        meterRegistry.counter("shopping.admission.rejected", "method", PRIORITY).increment();
+        return false;
+    }
+
+    private RejectedException rejected() {
+        return new RejectedException("Service is overloaded, retry after " + config.getRetryAfter().toSeconds() + "s");
+    }
+}
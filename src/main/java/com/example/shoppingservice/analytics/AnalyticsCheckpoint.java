@@ -0,0 +1,33 @@
+package com.example.shoppingservice.analytics;
+
+import com.example.shoppingservice.model.Category;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Document(collection = "analyticsCheckpoints")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnalyticsCheckpoint {
+
+    @Id
+    private String id;
+    private int sketchWidth;
+    private int sketchDepth;
+    private long[] productCounts;
+    private long[] categoryCounts;
+    private long[] pairCounts;
+    private List<UUID> topProducts;
+    private List<Category> topCategories;
+    private List<ProductPair> trackedPairs;
+    private Instant savedAt;
+}
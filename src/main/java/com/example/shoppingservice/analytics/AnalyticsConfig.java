@@ -0,0 +1,24 @@
+package com.example.shoppingservice.analytics;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "shopping.analytics")
+@Getter
+@Setter
+public class AnalyticsConfig {
+
+    private int sketchWidth = 2048;
+    private int sketchDepth = 4;
+    private int topK = 50;
+    private int trackedPairs = 500;
+    private int maxProductsPerCart = 50;
+    private String checkpointId = "cart-analytics";
+    private String instanceId = "default";
+    private Duration peerTtl = Duration.ofMinutes(10);
+}
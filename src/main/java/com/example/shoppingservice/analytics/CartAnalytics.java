@@ -0,0 +1,222 @@
+package com.example.shoppingservice.analytics;
+
+import com.example.shoppingservice.model.Category;
+import com.example.shoppingservice.model.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.CollectionUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@Component
+@Slf4j
+public class CartAnalytics {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final AnalyticsConfig config;
+    private final CountMinSketch productCounts;
+    private final CountMinSketch categoryCounts;
+    private final TopK<UUID> topProducts;
+    private final TopK<Category> topCategories;
+    private final CoOccurrenceSketch coOccurrence;
+    private final String checkpointId;
+    private final AtomicBoolean restored = new AtomicBoolean();
+    private volatile Peers peers;
+
+    public CartAnalytics(final ReactiveMongoTemplate mongoTemplate, final AnalyticsConfig config) {
+        this.mongoTemplate = mongoTemplate;
+        this.config = config;
+        this.checkpointId = config.getCheckpointId() + ":" + config.getInstanceId();
+        this.peers = Peers.empty(config);
+        this.productCounts = new CountMinSketch(config.getSketchWidth(), config.getSketchDepth());
+        this.categoryCounts = new CountMinSketch(config.getSketchWidth(), config.getSketchDepth());
+        this.topProducts = new TopK<>(config.getTopK());
+        this.topCategories = new TopK<>(config.getTopK());
+        this.coOccurrence = new CoOccurrenceSketch(config.getSketchWidth(), config.getSketchDepth(),
+                config.getTrackedPairs(), config.getMaxProductsPerCart());
+    }
+
+    public void recordAdded(final Collection<Product> addedProducts, final Collection<Product> cartProducts) {
+        if (CollectionUtils.isEmpty(addedProducts)) {
+            return;
+        }
+        for (Product product : addedProducts) {
+            if (product.getId() == null) {
+                continue;
+            }
+            long key = CountMinSketch.key(product.getId());
+            productCounts.add(key, 1);
+            topProducts.offer(product.getId(), productCounts.estimate(key));
+            CollectionUtils.emptyIfNull(product.getCategories()).forEach(this::recordCategory);
+        }
+        coOccurrence.record(productIds(addedProducts), productIds(cartProducts));
+    }
+
+    public List<HeavyHitter<UUID>> topProducts(final int limit) {
+        Peers current = peers;
+        return ranked(union(topProducts.keys(), current.topProducts()), this::productCount, limit);
+    }
+
+    public List<HeavyHitter<Category>> topCategories(final int limit) {
+        Peers current = peers;
+        return ranked(union(topCategories.keys(), current.topCategories()),
+                category -> categoryCounts.estimate(category.ordinal()) + current.categoryCounts().estimate(category.ordinal()),
+                limit);
+    }
+
+    public long productCount(final UUID productId) {
+        long key = CountMinSketch.key(productId);
+        return productCounts.estimate(key) + peers.productCounts().estimate(key);
+    }
+
+    public List<HeavyHitter<UUID>> coOccurring(final UUID productId, final int limit) {
+        Peers current = peers;
+        return ranked(union(coOccurrence.trackedPairs(), current.trackedPairs()).stream()
+                        .filter(pair -> pair.contains(productId))
+                        .toList(),
+                pair -> coOccurrence.estimate(pair) + current.pairCounts().estimate(pair.key()),
+                limit).stream()
+                .map(pair -> new HeavyHitter<>(pair.key().other(productId), pair.count()))
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${shopping.analytics.checkpoint-interval:PT1M}")
+    public void checkpointPeriodically() {
+        checkpoint()
+                .doOnError(err -> log.error("Error occurred during analytics checkpoint", err))
+                .subscribe();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreOnStartup() {
+        restore()
+                .doOnError(err -> log.error("Error occurred during analytics restore", err))
+                .subscribe();
+    }
+
+    public Mono<AnalyticsCheckpoint> checkpoint() {
+        return Mono.defer(() -> mongoTemplate.save(AnalyticsCheckpoint.builder()
+                        .id(checkpointId)
+                        .sketchWidth(config.getSketchWidth())
+                        .sketchDepth(config.getSketchDepth())
+                        .productCounts(productCounts.snapshot())
+                        .categoryCounts(categoryCounts.snapshot())
+                        .pairCounts(coOccurrence.snapshot())
+                        .topProducts(topProducts.keys())
+                        .topCategories(topCategories.keys())
+                        .trackedPairs(coOccurrence.trackedPairs())
+                        .savedAt(Instant.now())
+                        .build()))
+                .flatMap(saved -> refreshPeers().thenReturn(saved));
+    }
+
+    public Mono<Void> restore() {
+        return Mono.defer(() -> restored.compareAndSet(false, true)
+                        ? mongoTemplate.findById(checkpointId, AnalyticsCheckpoint.class)
+                        : Mono.empty())
+                .filter(this::compatible)
+                .doOnNext(this::merge)
+                .doOnNext(checkpoint -> log.info("Restored cart analytics checkpoint saved at {}", checkpoint.getSavedAt()))
+                .then(refreshPeers());
+    }
+
+    private Mono<Void> refreshPeers() {
+        return Mono.defer(() -> {
+            Criteria allNodes = where("id").regex("^" + Pattern.quote(config.getCheckpointId() + ":"));
+            Instant expiry = Instant.now().minus(config.getPeerTtl());
+            return mongoTemplate.remove(new Query(allNodes).addCriteria(where("savedAt").lt(expiry)), AnalyticsCheckpoint.class)
+                    .thenMany(mongoTemplate.find(new Query(allNodes), AnalyticsCheckpoint.class))
+                    .filter(checkpoint -> !checkpointId.equals(checkpoint.getId()) && compatible(checkpoint)
+                            && checkpoint.getSavedAt() != null && !checkpoint.getSavedAt().isBefore(expiry))
+                    .collectList()
+                    .doOnNext(checkpoints -> peers = Peers.merge(config, checkpoints))
+                    .then();
+        });
+    }
+
+    private boolean compatible(final AnalyticsCheckpoint checkpoint) {
+        return checkpoint.getSketchWidth() == config.getSketchWidth()
+                && checkpoint.getSketchDepth() == config.getSketchDepth();
+    }
+
+    private void merge(final AnalyticsCheckpoint checkpoint) {
+        if (productCounts.merge(checkpoint.getProductCounts())) {
+            CollectionUtils.emptyIfNull(checkpoint.getTopProducts())
+                    .forEach(id -> topProducts.offer(id, productCounts.estimate(CountMinSketch.key(id))));
+        }
+        if (categoryCounts.merge(checkpoint.getCategoryCounts())) {
+            CollectionUtils.emptyIfNull(checkpoint.getTopCategories())
+                    .forEach(category -> topCategories.offer(category, categoryCounts.estimate(category.ordinal())));
+        }
+        coOccurrence.restore(checkpoint.getPairCounts(), checkpoint.getTrackedPairs());
+    }
+
+    private void recordCategory(final Category category) {
+        categoryCounts.add(category.ordinal(), 1);
+        topCategories.offer(category, categoryCounts.estimate(category.ordinal()));
+    }
+
+    private static List<UUID> productIds(final Collection<Product> products) {
+        return CollectionUtils.emptyIfNull(products).stream()
+                .map(Product::getId)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private static <K> Set<K> union(final Collection<K> local, final Collection<K> remote) {
+        Set<K> keys = new LinkedHashSet<>(local);
+        keys.addAll(remote);
+        return keys;
+    }
+
+    private static <K> List<HeavyHitter<K>> ranked(final Collection<K> keys, final ToLongFunction<K> count, final int limit) {
+        return keys.stream()
+                .map(key -> new HeavyHitter<>(key, count.applyAsLong(key)))
+                .sorted(Comparator.comparingLong(HeavyHitter<K>::count).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    private record Peers(CountMinSketch productCounts, CountMinSketch categoryCounts, CountMinSketch pairCounts,
+                         Set<UUID> topProducts, Set<Category> topCategories, Set<ProductPair> trackedPairs) {
+
+        static Peers empty(final AnalyticsConfig config) {
+            return merge(config, List.of());
+        }
+
+        static Peers merge(final AnalyticsConfig config, final List<AnalyticsCheckpoint> checkpoints) {
+            Peers peers = new Peers(new CountMinSketch(config.getSketchWidth(), config.getSketchDepth()),
+                    new CountMinSketch(config.getSketchWidth(), config.getSketchDepth()),
+                    new CountMinSketch(config.getSketchWidth(), config.getSketchDepth()),
+                    new LinkedHashSet<>(), new LinkedHashSet<>(), new LinkedHashSet<>());
+            for (AnalyticsCheckpoint checkpoint : checkpoints) {
+                peers.productCounts().merge(checkpoint.getProductCounts());
+                peers.categoryCounts().merge(checkpoint.getCategoryCounts());
+                peers.pairCounts().merge(checkpoint.getPairCounts());
+                peers.topProducts().addAll(CollectionUtils.emptyIfNull(checkpoint.getTopProducts()));
+                peers.topCategories().addAll(CollectionUtils.emptyIfNull(checkpoint.getTopCategories()));
+                peers.trackedPairs().addAll(CollectionUtils.emptyIfNull(checkpoint.getTrackedPairs()));
+            }
+            return peers;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.shoppingservice.analytics;
+
+import java.util.List;
+import java.util.UUID;
+
+public class CoOccurrenceSketch {
+
+    private final CountMinSketch pairCounts;
+    private final TopK<ProductPair> topPairs;
+    private final int maxProductsPerCart;
+
+    public CoOccurrenceSketch(final int width, final int depth, final int trackedPairs, final int maxProductsPerCart) {
+        this.pairCounts = new CountMinSketch(width, depth);
+        this.topPairs = new TopK<>(trackedPairs);
+        this.maxProductsPerCart = maxProductsPerCart;
+    }
+
+    public void record(final List<UUID> addedProductIds, final List<UUID> cartProductIds) {
+        List<UUID> added = bounded(addedProductIds);
+        List<UUID> cart = bounded(cartProductIds);
+        for (UUID addedId : added) {
+            for (UUID cartId : cart) {
+                boolean countedFromOtherSide = added.contains(cartId) && addedId.compareTo(cartId) > 0;
+                if (!addedId.equals(cartId) && !countedFromOtherSide) {
+                    increment(ProductPair.of(addedId, cartId));
+                }
+            }
+        }
+    }
+
+    public long estimate(final ProductPair pair) {
+        return pairCounts.estimate(pair.key());
+    }
+
+    public long[] snapshot() {
+        return pairCounts.snapshot();
+    }
+
+    public List<ProductPair> trackedPairs() {
+        return topPairs.keys();
+    }
+
+    public void restore(final long[] state, final List<ProductPair> pairs) {
+        if (pairCounts.merge(state) && pairs != null) {
+            pairs.forEach(pair -> topPairs.offer(pair, pairCounts.estimate(pair.key())));
+        }
+    }
+
+    private void increment(final ProductPair pair) {
+        pairCounts.add(pair.key(), 1);
+        topPairs.offer(pair, pairCounts.estimate(pair.key()));
+    }
+
+    private List<UUID> bounded(final List<UUID> productIds) {
+        List<UUID> distinct = productIds.stream().distinct().toList();
+        return distinct.size() > maxProductsPerCart ? distinct.subList(0, maxProductsPerCart) : distinct;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.shoppingservice.analytics;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class CountMinSketch {
+
+    private static final long ROW_SEED = 0x9E3779B97F4A7C15L;
+
+    private final int width;
+    private final int depth;
+    private final AtomicLongArray counters;
+
+    public CountMinSketch(final int width, final int depth) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("Sketch width and depth must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counters = new AtomicLongArray(width * depth);
+    }
+
+    public void add(final long key, final long count) {
+        for (int row = 0; row < depth; row++) {
+            counters.addAndGet(row * width + column(key, row), count);
+        }
+    }
+
+    public long estimate(final long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(row * width + column(key, row)));
+        }
+        return estimate;
+    }
+
+    public long[] snapshot() {
+        long[] state = new long[counters.length()];
+        for (int i = 0; i < state.length; i++) {
+            state[i] = counters.get(i);
+        }
+        return state;
+    }
+
+    public boolean merge(final long[] state) {
+        if (state == null || state.length != counters.length()) {
+            return false;
+        }
+        for (int i = 0; i < state.length; i++) {
+            counters.addAndGet(i, state[i]);
+        }
+        return true;
+    }
+
+    public static long key(final UUID id) {
+        return mix(id.getMostSignificantBits()) ^ id.getLeastSignificantBits();
+    }
+
+    static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    private int column(final long key, final int row) {
+        return (int) Long.remainderUnsigned(mix(key + (row + 1) * ROW_SEED), width);
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.shoppingservice.analytics;
+
+public record HeavyHitter<K>(K key, long count) {
+}
@@ -0,0 +1,22 @@
+package com.example.shoppingservice.analytics;
+
+import java.util.UUID;
+
+public record ProductPair(UUID first, UUID second) {
+
+    public static ProductPair of(final UUID a, final UUID b) {
+        return a.compareTo(b) <= 0 ? new ProductPair(a, b) : new ProductPair(b, a);
+    }
+
+    public boolean contains(final UUID productId) {
+        return first.equals(productId) || second.equals(productId);
+    }
+
+    public UUID other(final UUID productId) {
+        return first.equals(productId) ? second : first;
+    }
+
+    long key() {
+        return CountMinSketch.mix(CountMinSketch.key(first)) ^ CountMinSketch.key(second);
+    }
+}
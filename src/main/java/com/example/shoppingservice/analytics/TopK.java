@@ -0,0 +1,47 @@
+package com.example.shoppingservice.analytics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TopK<K> {
+
+    private final int capacity;
+    private final Map<K, Long> counts;
+
+    public TopK(final int capacity) {
+        this.capacity = capacity;
+        this.counts = new HashMap<>(capacity * 2);
+    }
+
+    public synchronized void offer(final K key, final long estimate) {
+        if (counts.containsKey(key) || counts.size() < capacity) {
+            counts.put(key, estimate);
+            return;
+        }
+        Map.Entry<K, Long> smallest = null;
+        for (Map.Entry<K, Long> entry : counts.entrySet()) {
+            if (smallest == null || entry.getValue() < smallest.getValue()) {
+                smallest = entry;
+            }
+        }
+        if (smallest != null && estimate > smallest.getValue()) {
+            counts.remove(smallest.getKey());
+            counts.put(key, estimate);
+        }
+    }
+
+    public synchronized List<HeavyHitter<K>> top(final int limit) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<K, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .map(entry -> new HeavyHitter<>(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    public synchronized List<K> keys() {
+        return new ArrayList<>(counts.keySet());
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.shoppingservice.api;
+
+import com.example.shoppingservice.analytics.CartAnalytics;
+import com.example.shoppingservice.analytics.HeavyHitter;
+import com.example.shoppingservice.model.Category;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/shopping/analytics")
+@AllArgsConstructor
+public class AnalyticsController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final CartAnalytics cartAnalytics;
+
+    @GetMapping("products/top")
+    public Flux<HeavyHitter<UUID>> getTopProducts(final @RequestParam(defaultValue = "10") int limit) {
+        return validated(limit).thenMany(Flux.defer(() -> Flux.fromIterable(cartAnalytics.topProducts(limit))));
+    }
+
+    @GetMapping("categories/top")
+    public Flux<HeavyHitter<Category>> getTopCategories(final @RequestParam(defaultValue = "10") int limit) {
+        return validated(limit).thenMany(Flux.defer(() -> Flux.fromIterable(cartAnalytics.topCategories(limit))));
+    }
+
+    @GetMapping("products/{productId}")
+    public Mono<HeavyHitter<UUID>> getProductCount(final @PathVariable UUID productId) {
+        return Mono.fromSupplier(() -> new HeavyHitter<>(productId, cartAnalytics.productCount(productId)));
+    }
+
+    @GetMapping("products/{productId}/co-occurring")
+    public Flux<HeavyHitter<UUID>> getCoOccurringProducts(final @PathVariable UUID productId,
+                                                          final @RequestParam(defaultValue = "10") int limit) {
+        return validated(limit).thenMany(Flux.defer(() -> Flux.fromIterable(cartAnalytics.coOccurring(productId, limit))));
+    }
+
+    private static Mono<Void> validated(final int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_LIMIT));
+        }
+        return Mono.empty();
+    }
+}
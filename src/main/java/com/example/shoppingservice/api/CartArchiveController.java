@@ -0,0 +1,37 @@
+package com.example.shoppingservice.api;
+
+import com.example.shoppingservice.model.ArchivedCartPage;
+import com.example.shoppingservice.service.CartArchiveService;
+import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/shopping/archive")
+@AllArgsConstructor
+public class CartArchiveController {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final CartArchiveService cartArchiveService;
+
+    @GetMapping
+    public Mono<ArchivedCartPage> getArchivedCarts(final @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                   final @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                   final @RequestParam(required = false) String cursor,
+                                                   final @RequestParam(defaultValue = "20") int limit) {
+        if (from.isAfter(to) || limit < 1 || limit > MAX_PAGE_SIZE) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "From must not be after to and limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        return cartArchiveService.findArchivedCarts(from, to, cursor, limit);
+    }
+}
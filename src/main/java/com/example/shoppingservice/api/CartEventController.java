@@ -0,0 +1,53 @@
+package com.example.shoppingservice.api;
+
+import com.example.shoppingservice.events.CartEvent;
+import com.example.shoppingservice.events.CartEventConfig;
+import com.example.shoppingservice.events.CartEventHub;
+import com.example.shoppingservice.model.ShoppingCart;
+import com.example.shoppingservice.service.ShoppingService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/shopping/cart")
+@AllArgsConstructor
+public class CartEventController {
+
+    private final ShoppingService shoppingService;
+
+    private final CartEventHub cartEventHub;
+
+    private final CartEventConfig config;
+
+    @GetMapping(value = "{cartId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ShoppingCart>> streamCartEvents(final @PathVariable UUID cartId,
+                                                                final @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                                                final @RequestParam(required = false) Long sinceVersion) {
+        Long resumeFrom = lastEventId != null ? lastEventId : sinceVersion;
+        Sinks.Empty<Void> completed = Sinks.empty();
+        Flux<ServerSentEvent<ShoppingCart>> events = cartEventHub
+                .subscribe(cartId, resumeFrom, shoppingService.retrieveShoppingCart(cartId))
+                .map(CartEventController::toServerSentEvent)
+                .doFinally(signal -> completed.tryEmitEmpty());
+        Flux<ServerSentEvent<ShoppingCart>> heartbeats = Flux.interval(config.getHeartbeat())
+                .map(tick -> ServerSentEvent.<ShoppingCart>builder().comment("heartbeat").build())
+                .takeUntilOther(completed.asMono());
+        return Flux.merge(events, heartbeats);
+    }
+
+    private static ServerSentEvent<ShoppingCart> toServerSentEvent(final CartEvent event) {
+        ServerSentEvent.Builder<ShoppingCart> builder = ServerSentEvent.<ShoppingCart>builder()
+                .event(event.type().name().toLowerCase())
+                .data(event.cart());
+        if (event.version() != null) {
+            builder.id(event.version().toString());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.shoppingservice.api;
+
+import com.example.shoppingservice.deadline.Deadline;
+import com.example.shoppingservice.deadline.DeadlineConfig;
+import com.example.shoppingservice.deadline.DeadlineRSocketInterceptor;
+import com.example.shoppingservice.idempotency.IdempotencyStore;
+import com.example.shoppingservice.model.CartMutation;
+import com.example.shoppingservice.model.CartMutationResult;
+import com.example.shoppingservice.model.ShoppingCart;
+import com.example.shoppingservice.model.ShoppingCartRequestBody;
+import com.example.shoppingservice.service.ShoppingService;
+import io.rsocket.exceptions.ApplicationErrorException;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.support.MethodArgumentNotValidException;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Controller
+@MessageMapping("cart")
+@AllArgsConstructor
+public class CartRSocketController {
+
+    private static final int BULK_READ_CONCURRENCY = 16;
+
+    private final ShoppingService shoppingService;
+
+    private final IdempotencyStore idempotencyStore;
+
+    private final DeadlineConfig deadlineConfig;
+
+    @MessageMapping("create")
+    public Mono<ShoppingCart> createShoppingCart(final @Valid ShoppingCartRequestBody requestBody) {
+        return shoppingService.createShoppingCart(requestBody);
+    }
+
+    @MessageMapping("get")
+    public Mono<ShoppingCart> getShoppingCart(final UUID cartId) {
+        return shoppingService.retrieveShoppingCart(cartId);
+    }
+
+    @MessageMapping("get-many")
+    public Flux<ShoppingCart> getShoppingCarts(final List<UUID> cartIds) {
+        return Flux.fromIterable(cartIds)
+                .flatMapSequential(cartId -> shoppingService.retrieveShoppingCart(cartId)
+                        .onErrorResume(CartRSocketController::isNotFound, err -> Mono.empty()), BULK_READ_CONCURRENCY);
+    }
+
+    @MessageMapping("mutate")
+    public Mono<ShoppingCart> mutateShoppingCart(final CartMutation mutation) {
+        return apply(mutation);
+    }
+
+    @MessageMapping("mutations")
+    public Flux<CartMutationResult> mutateShoppingCarts(final Flux<CartMutation> mutations) {
+        return mutations.concatMap(mutation -> Deadline.start(apply(mutation),
+                        deadlineConfig.timeoutFor(DeadlineRSocketInterceptor.METHOD), deadlineConfig.getRequestGrace())
+                .map(cart -> CartMutationResult.success(cart.getId(), cart))
+                .defaultIfEmpty(CartMutationResult.success(mutation.cartId(), null))
+                .onErrorResume(err -> Mono.just(CartMutationResult.failure(mutation.cartId(), reason(err)))));
+    }
+
+    @MessageExceptionHandler
+    public Mono<Void> handleStatus(final ResponseStatusException error) {
+        return Mono.error(new ApplicationErrorException(reason(error)));
+    }
+
+    @MessageExceptionHandler
+    public Mono<Void> handleInvalid(final MethodArgumentNotValidException error) {
+        String reason = error.getBindingResult() == null
+                ? error.getMessage()
+                : error.getBindingResult().getFieldErrors().stream()
+                        .map(fieldError -> fieldError.getField() + " " + fieldError.getDefaultMessage())
+                        .collect(Collectors.joining(", "));
+        return Mono.error(new ApplicationErrorException(reason));
+    }
+
+    private Mono<ShoppingCart> apply(final CartMutation mutation) {
+        return Mono.defer(() -> {
+            String invalid = validate(mutation);
+            if (invalid != null) {
+                return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, invalid));
+            }
+            if (mutation.idempotencyKey() == null || mutation.idempotencyKey().isBlank()
+                    || mutation.operation() == CartMutation.Operation.DELETE) {
+                return execute(mutation);
+            }
+            String fingerprint = IdempotencyStore.fingerprint(mutation.operation().name().toLowerCase(), mutation.cartId(),
+                    mutation.expectedVersion(), mutation.productIds(), null);
+            return idempotencyStore.execute(mutation.idempotencyKey(), fingerprint, () -> execute(mutation));
+        });
+    }
+
+    private Mono<ShoppingCart> execute(final CartMutation mutation) {
+        return switch (mutation.operation()) {
+            case CREATE -> shoppingService.createShoppingCart(new ShoppingCartRequestBody(mutation.productIds()));
+            case EDIT -> shoppingService.editShoppingCart(mutation.cartId(), new ShoppingCartRequestBody(mutation.productIds()),
+                    mutation.expectedVersion());
+            case ADD -> shoppingService.addProductsToShoppingCart(mutation.cartId(), mutation.productIds(), mutation.expectedVersion());
+            case REMOVE -> shoppingService.removeProductsFromShoppingCart(mutation.cartId(), mutation.productIds(),
+                    mutation.expectedVersion());
+            case DELETE -> shoppingService.deleteShoppingCart(mutation.cartId()).then(Mono.empty());
+        };
+    }
+
+    private static String validate(final CartMutation mutation) {
+        if (mutation == null || mutation.operation() == null) {
+            return "Mutation operation is required";
+        }
+        if (mutation.operation() != CartMutation.Operation.CREATE && mutation.cartId() == null) {
+            return "Cart id is required for " + mutation.operation();
+        }
+        if (mutation.operation() != CartMutation.Operation.DELETE && mutation.productIds() == null) {
+            return "Product ids are required for " + mutation.operation();
+        }
+        return null;
+    }
+
+    private static boolean isNotFound(final Throwable error) {
+        return error instanceof ResponseStatusException statusException
+                && statusException.getStatusCode().isSameCodeAs(HttpStatus.NOT_FOUND);
+    }
+
+    private static String reason(final Throwable error) {
+        return error instanceof ResponseStatusException statusException && statusException.getReason() != null
+                ? statusException.getReason()
+                : error.getMessage();
+    }
+}
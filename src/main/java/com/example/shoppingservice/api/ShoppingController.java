@@ -1,50 +1,136 @@
 package com.example.shoppingservice.api;
 
+import com.example.shoppingservice.idempotency.IdempotencyStore;
+import com.example.shoppingservice.model.CartPage;
 import com.example.shoppingservice.model.ShoppingCart;
 import com.example.shoppingservice.model.ShoppingCartRequestBody;
 import com.example.shoppingservice.service.ShoppingService;
+import com.example.shoppingservice.tracing.ReactiveObservations;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/shopping/cart")
 @AllArgsConstructor
 public class ShoppingController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final ShoppingService shoppingService;
 
+    private final IdempotencyStore idempotencyStore;
+
+    private final ObservationRegistry observationRegistry;
+
     @PostMapping
-    public Mono<ShoppingCart> createShoppingCart(final @RequestBody @Valid ShoppingCartRequestBody requestBody) {
-        return shoppingService.createShoppingCart(requestBody);
+    public Mono<ResponseEntity<ShoppingCart>> createShoppingCart(final @RequestBody @Valid ShoppingCartRequestBody requestBody,
+                                                                 final @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return observe("create", idempotent(idempotencyKey, IdempotencyStore.fingerprint("create", null, null, requestBody.products(), requestBody.owner()),
+                () -> shoppingService.createShoppingCart(requestBody)));
+    }
+
+    @GetMapping
+    public Mono<CartPage> getShoppingCartsByOwner(final @RequestParam String owner,
+                                                  final @RequestParam(required = false) String cursor,
+                                                  final @RequestParam(defaultValue = "20") int limit) {
+        if (owner.isBlank() || limit < 1 || limit > MAX_PAGE_SIZE) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Owner is required and limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        return observe("list", shoppingService.findShoppingCartsByOwner(owner, cursor, limit));
     }
 
     @GetMapping("{cartId}")
-    public Mono<ShoppingCart> getShoppingCart(final @PathVariable UUID cartId) {
-        return shoppingService.retrieveShoppingCart(cartId);
+    public Mono<ResponseEntity<ShoppingCart>> getShoppingCart(final @PathVariable UUID cartId) {
+        return observe("get", shoppingService.retrieveShoppingCart(cartId)
+                .map(ShoppingController::withETag));
     }
 
     @PutMapping("{cartId}")
-    public Mono<ShoppingCart> updateShoppingCart(final @PathVariable UUID cartId, final @RequestBody @Valid ShoppingCartRequestBody requestBody) {
-        return shoppingService.editShoppingCart(cartId, requestBody);
+    public Mono<ResponseEntity<ShoppingCart>> updateShoppingCart(final @PathVariable UUID cartId, final @RequestBody @Valid ShoppingCartRequestBody requestBody,
+                                                                 final @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                                 final @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = expectedVersion(ifMatch);
+        return observe("edit", idempotent(idempotencyKey, IdempotencyStore.fingerprint("edit", cartId, expectedVersion, requestBody.products(), null),
+                () -> shoppingService.editShoppingCart(cartId, requestBody, expectedVersion)));
     }
 
     @PatchMapping("{cartId}/add")
-    public Mono<ShoppingCart> addProductsToShoppingCart(final @PathVariable UUID cartId, final @RequestParam List<UUID> productIds) {
-        return shoppingService.addProductsToShoppingCart(cartId, productIds);
+    public Mono<ResponseEntity<ShoppingCart>> addProductsToShoppingCart(final @PathVariable UUID cartId, final @RequestParam List<UUID> productIds,
+                                                                        final @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                                        final @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = expectedVersion(ifMatch);
+        return observe("add", idempotent(idempotencyKey, IdempotencyStore.fingerprint("add", cartId, expectedVersion, productIds, null),
+                () -> shoppingService.addProductsToShoppingCart(cartId, productIds, expectedVersion)));
     }
 
     @PatchMapping("{cartId}/remove")
-    public Mono<ShoppingCart> removeProductsFromShoppingCart(final @PathVariable UUID cartId, final @RequestParam List<UUID> productIds) {
-        return shoppingService.removeProductsFromShoppingCart(cartId, productIds);
+    public Mono<ResponseEntity<ShoppingCart>> removeProductsFromShoppingCart(final @PathVariable UUID cartId, final @RequestParam List<UUID> productIds,
+                                                                             final @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                                             final @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = expectedVersion(ifMatch);
+        return observe("remove", idempotent(idempotencyKey, IdempotencyStore.fingerprint("remove", cartId, expectedVersion, productIds, null),
+                () -> shoppingService.removeProductsFromShoppingCart(cartId, productIds, expectedVersion)));
+    }
+
+    @PostMapping("{targetId}/merge/{sourceId}")
+    public Mono<ResponseEntity<ShoppingCart>> mergeShoppingCarts(final @PathVariable UUID targetId, final @PathVariable UUID sourceId,
+                                                                 final @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return observe("merge", idempotent(idempotencyKey, IdempotencyStore.fingerprint("merge", targetId, null, List.of(sourceId), null),
+                () -> shoppingService.mergeShoppingCarts(targetId, sourceId)));
     }
 
     @DeleteMapping("{cartId}")
     public Mono<Void> deleteShoppingCart(final @PathVariable UUID cartId) {
-        return shoppingService.deleteShoppingCart(cartId);
+        return observe("delete", shoppingService.deleteShoppingCart(cartId));
+    }
+
+    private <T> Mono<T> observe(final String operation, final Mono<T> call) {
+        return ReactiveObservations.observe(call, observationRegistry, "shopping.cart.request", "operation", operation);
+    }
+
+    private Mono<ResponseEntity<ShoppingCart>> idempotent(final String idempotencyKey, final String fingerprint,
+                                                          final Supplier<Mono<ShoppingCart>> work) {
+        Mono<ShoppingCart> result = idempotencyKey == null || idempotencyKey.isBlank()
+                ? work.get()
+                : idempotencyStore.execute(idempotencyKey, fingerprint, work);
+        return result.map(ShoppingController::withETag);
+    }
+
+    private static ResponseEntity<ShoppingCart> withETag(final ShoppingCart cart) {
+        if (cart.getVersion() == null) {
+            return ResponseEntity.ok(cart);
+        }
+        return ResponseEntity.ok()
+                .eTag("\"" + cart.getVersion() + "\"")
+                .body(cart);
+    }
+
+    private static Long expectedVersion(final String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        try {
+            return Long.parseLong(tag.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Shopping cart version does not match");
+        }
     }
 }
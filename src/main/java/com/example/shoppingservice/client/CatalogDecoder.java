@@ -0,0 +1,52 @@
+package com.example.shoppingservice.client;
+
+import com.example.shoppingservice.model.Product;
+import com.example.shoppingservice.runtime.CpuBoundScheduler;
+import com.example.shoppingservice.tracing.ReactiveObservations;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+final class CatalogDecoder {
+
+    private final CpuBoundScheduler cpuBoundScheduler;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObservationRegistry observationRegistry;
+
+    CatalogDecoder(final CpuBoundScheduler cpuBoundScheduler, final ObjectMapper objectMapper,
+                   final ObservationRegistry observationRegistry) {
+        this.cpuBoundScheduler = cpuBoundScheduler;
+        this.objectMapper = objectMapper;
+        this.observationRegistry = observationRegistry;
+    }
+
+    Mono<List<Product>> decodeProducts(final ClientResponse response) {
+        Mono<List<Product>> decoded = cpuBoundScheduler.isOffloading()
+                ? decodeOffloaded(response, objectMapper.getTypeFactory().constructCollectionType(List.class, Product.class))
+                : response.bodyToFlux(Product.class).collectList();
+        return observeDecode(decoded, "List");
+    }
+
+    <T> Mono<T> decode(final ClientResponse response, final Class<T> type) {
+        Mono<T> decoded = cpuBoundScheduler.isOffloading()
+                ? decodeOffloaded(response, objectMapper.constructType(type))
+                : response.bodyToMono(type);
+        return observeDecode(decoded, type.getSimpleName());
+    }
+
+    private <T> Mono<T> observeDecode(final Mono<T> decoded, final String type) {
+        return ReactiveObservations.observe(decoded, observationRegistry, "shopping.catalog.decode",
+                "type", type, "offloaded", String.valueOf(cpuBoundScheduler.isOffloading()));
+    }
+
+    private <T> Mono<T> decodeOffloaded(final ClientResponse response, final JavaType type) {
+        return response.bodyToMono(byte[].class)
+                .flatMap(bytes -> cpuBoundScheduler.run(() -> objectMapper.<T>readValue(bytes, type)));
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.shoppingservice.client;
+
+import com.example.shoppingservice.model.Product;
+
+import java.util.List;
+import java.util.UUID;
+
+public record CatalogDelta(String version, List<Product> upserted, List<UUID> removed) {
+}
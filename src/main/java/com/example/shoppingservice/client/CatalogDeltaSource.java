@@ -0,0 +1,31 @@
+package com.example.shoppingservice.client;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+final class CatalogDeltaSource {
+
+    private final WebClient webClient;
+
+    private final CatalogDecoder decoder;
+
+    CatalogDeltaSource(final WebClient webClient, final CatalogDecoder decoder) {
+        this.webClient = webClient;
+        this.decoder = decoder;
+    }
+
+    Mono<CatalogDelta> changesSince(final String version) {
+        return webClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/products/changes").queryParam("since", version).build())
+                .exchangeToMono(response -> {
+                    if (response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                        return response.releaseBody().then(Mono.empty());
+                    }
+                    if (!response.statusCode().is2xxSuccessful()) {
+                        return response.createException().flatMap(Mono::error);
+                    }
+                    return decoder.decode(response, CatalogDelta.class);
+                });
+    }
+}
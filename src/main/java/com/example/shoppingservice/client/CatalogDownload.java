@@ -0,0 +1,8 @@
+package com.example.shoppingservice.client;
+
+import com.example.shoppingservice.model.Product;
+
+import java.util.List;
+
+record CatalogDownload(List<Product> products, String version) {
+}
@@ -0,0 +1,309 @@
+package com.example.shoppingservice.client;
+
+import com.example.shoppingservice.model.Category;
+import com.example.shoppingservice.model.Manufacturer;
+import com.example.shoppingservice.model.Product;
+import com.example.shoppingservice.model.Review;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+public final class CatalogIndex implements ProductCatalog {
+
+    private static final Category[] CATEGORIES = Category.values();
+    private static final byte NULL_PRICE = Byte.MIN_VALUE;
+    private static final byte WIDE_PRICE = Byte.MAX_VALUE;
+    private static final long NULL_TIME = Long.MIN_VALUE;
+
+    private final long[] idMsb;
+    private final long[] idLsb;
+    private final int[] slots;
+    private final String[] names;
+    private final String[] descriptions;
+    private final long[] priceUnscaled;
+    private final byte[] priceScale;
+    private final Map<Integer, BigDecimal> widePrices = new HashMap<>();
+    private final int[] manufacturerRefs;
+    private final int[] categoryOffsets;
+    private final BitSet nullCategories;
+    private final long[] createdAtSeconds;
+    private final int[] createdAtNanos;
+    private final long[] updatedAtSeconds;
+    private final int[] updatedAtNanos;
+    private final List<Review>[] reviews;
+    private int size;
+    private Manufacturer[] manufacturers;
+    private byte[] categoryOrdinals;
+
+    @SuppressWarnings("unchecked")
+    private CatalogIndex(final int capacity) {
+        this.idMsb = new long[capacity];
+        this.idLsb = new long[capacity];
+        this.slots = new int[tableSize(capacity)];
+        this.names = new String[capacity];
+        this.descriptions = new String[capacity];
+        this.priceUnscaled = new long[capacity];
+        this.priceScale = new byte[capacity];
+        this.manufacturerRefs = new int[capacity];
+        this.categoryOffsets = new int[capacity + 1];
+        this.nullCategories = new BitSet(capacity);
+        this.createdAtSeconds = new long[capacity];
+        this.createdAtNanos = new int[capacity];
+        this.updatedAtSeconds = new long[capacity];
+        this.updatedAtNanos = new int[capacity];
+        this.reviews = new List[capacity];
+    }
+
+    public static CatalogIndex of(final Collection<Product> products) {
+        CatalogIndex index = new CatalogIndex(products.size());
+        Map<Manufacturer, Integer> manufacturerIds = new HashMap<>();
+        List<Manufacturer> manufacturers = new ArrayList<>();
+        byte[] categoryOrdinals = new byte[Math.max(16, products.size() * 2)];
+        int categoryCount = 0;
+        int row = 0;
+
+        for (Product product : products) {
+            if (product.getId() == null || !index.insertSlot(product.getId(), row)) {
+                continue;
+            }
+            index.idMsb[row] = product.getId().getMostSignificantBits();
+            index.idLsb[row] = product.getId().getLeastSignificantBits();
+            index.names[row] = product.getName();
+            index.descriptions[row] = product.getDescription();
+            index.storePrice(row, product.getPrice());
+            index.manufacturerRefs[row] = product.getManufacturer() == null ? -1
+                    : manufacturerIds.computeIfAbsent(product.getManufacturer(), manufacturer -> {
+                        manufacturers.add(copy(manufacturer));
+                        return manufacturers.size() - 1;
+                    });
+            index.categoryOffsets[row] = categoryCount;
+            if (product.getCategories() == null) {
+                index.nullCategories.set(row);
+            } else {
+                for (Category category : product.getCategories()) {
+                    if (categoryCount == categoryOrdinals.length) {
+                        categoryOrdinals = Arrays.copyOf(categoryOrdinals, categoryCount * 2);
+                    }
+                    categoryOrdinals[categoryCount++] = (byte) category.ordinal();
+                }
+            }
+            index.createdAtSeconds[row] = epochSeconds(product.getCreatedAt());
+            index.createdAtNanos[row] = product.getCreatedAt() == null ? 0 : product.getCreatedAt().getNano();
+            index.updatedAtSeconds[row] = epochSeconds(product.getUpdatedAt());
+            index.updatedAtNanos[row] = product.getUpdatedAt() == null ? 0 : product.getUpdatedAt().getNano();
+            index.reviews[row] = copy(product.getReviews());
+            row++;
+        }
+        index.categoryOffsets[row] = categoryCount;
+        index.size = row;
+        index.manufacturers = manufacturers.toArray(Manufacturer[]::new);
+        index.categoryOrdinals = Arrays.copyOf(categoryOrdinals, categoryCount);
+        return index;
+    }
+
+    public static CatalogIndex merge(final ProductCatalog base, final Collection<Product> upserted,
+                                     final Collection<UUID> removed) {
+        Set<UUID> replaced = new HashSet<>(removed);
+        upserted.forEach(product -> replaced.add(product.getId()));
+        List<UUID> baseIds = base.productIds();
+        List<Product> products = new ArrayList<>(baseIds.size() + upserted.size());
+        for (int row = 0; row < baseIds.size(); row++) {
+            if (!replaced.contains(baseIds.get(row))) {
+                products.add(base.materialize(row));
+            }
+        }
+        products.addAll(upserted);
+        return of(products);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(final UUID productId) {
+        return indexOf(productId) >= 0;
+    }
+
+    public int indexOf(final UUID productId) {
+        long msb = productId.getMostSignificantBits();
+        long lsb = productId.getLeastSignificantBits();
+        int mask = slots.length - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (true) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            int row = entry - 1;
+            if (idMsb[row] == msb && idLsb[row] == lsb) {
+                return row;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    @Override
+    public Product get(final UUID productId) {
+        int row = indexOf(productId);
+        return row < 0 ? null : materialize(row);
+    }
+
+    @Override
+    public List<Product> findAll(final Collection<UUID> productIds) {
+        int[] rows = new int[productIds.size()];
+        int matched = 0;
+        for (UUID productId : productIds) {
+            int row = indexOf(productId);
+            if (row >= 0) {
+                rows[matched++] = row;
+            }
+        }
+        Arrays.sort(rows, 0, matched);
+        List<Product> products = new ArrayList<>(matched);
+        for (int i = 0; i < matched; i++) {
+            if (i == 0 || rows[i] != rows[i - 1]) {
+                products.add(materialize(rows[i]));
+            }
+        }
+        return products;
+    }
+
+    @Override
+    public List<UUID> productIds() {
+        List<UUID> productIds = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            productIds.add(new UUID(idMsb[row], idLsb[row]));
+        }
+        return productIds;
+    }
+
+    @Override
+    public Product materialize(final int row) {
+        return Product.builder()
+                .id(new UUID(idMsb[row], idLsb[row]))
+                .name(names[row])
+                .description(descriptions[row])
+                .price(price(row))
+                .manufacturer(manufacturerRefs[row] < 0 ? null : copy(manufacturers[manufacturerRefs[row]]))
+                .categories(categories(row))
+                .createdAt(dateTime(createdAtSeconds[row], createdAtNanos[row]))
+                .updatedAt(dateTime(updatedAtSeconds[row], updatedAtNanos[row]))
+                .reviews(copy(reviews[row]))
+                .build();
+    }
+
+    long idMsb(final int row) {
+        return idMsb[row];
+    }
+
+    long idLsb(final int row) {
+        return idLsb[row];
+    }
+
+    int slotCount() {
+        return slots.length;
+    }
+
+    int slot(final int slot) {
+        return slots[slot];
+    }
+
+    private boolean insertSlot(final UUID productId, final int row) {
+        long msb = productId.getMostSignificantBits();
+        long lsb = productId.getLeastSignificantBits();
+        int mask = slots.length - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (slots[slot] != 0) {
+            int existing = slots[slot] - 1;
+            if (idMsb[existing] == msb && idLsb[existing] == lsb) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = row + 1;
+        return true;
+    }
+
+    private void storePrice(final int row, final BigDecimal price) {
+        if (price == null) {
+            priceScale[row] = NULL_PRICE;
+        } else if (price.unscaledValue().bitLength() < Long.SIZE && price.scale() >= 0 && price.scale() < WIDE_PRICE) {
+            priceUnscaled[row] = price.unscaledValue().longValue();
+            priceScale[row] = (byte) price.scale();
+        } else {
+            priceScale[row] = WIDE_PRICE;
+            widePrices.put(row, price);
+        }
+    }
+
+    private BigDecimal price(final int row) {
+        return switch (priceScale[row]) {
+            case NULL_PRICE -> null;
+            case WIDE_PRICE -> widePrices.get(row);
+            default -> BigDecimal.valueOf(priceUnscaled[row], priceScale[row]);
+        };
+    }
+
+    private static Manufacturer copy(final Manufacturer manufacturer) {
+        return new Manufacturer(manufacturer.getId(), manufacturer.getName(), manufacturer.getAddress(), manufacturer.getContact());
+    }
+
+    private static List<Review> copy(final List<Review> reviews) {
+        if (reviews == null) {
+            return null;
+        }
+        List<Review> copies = new ArrayList<>(reviews.size());
+        for (Review review : reviews) {
+            copies.add(review == null ? null
+                    : new Review(review.getReviewerName(), review.getComment(), review.getRating(), review.getReviewDate()));
+        }
+        return copies;
+    }
+
+    private List<Category> categories(final int row) {
+        if (nullCategories.get(row)) {
+            return null;
+        }
+        int from = categoryOffsets[row];
+        int to = categoryOffsets[row + 1];
+        List<Category> categories = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            categories.add(CATEGORIES[categoryOrdinals[i]]);
+        }
+        return categories;
+    }
+
+    private static long epochSeconds(final LocalDateTime dateTime) {
+        return dateTime == null ? NULL_TIME : dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime dateTime(final long seconds, final int nanos) {
+        return seconds == NULL_TIME ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    private static int tableSize(final int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+        return Math.max(tableSize, 4);
+    }
+
+    static int hash(final long msb, final long lsb) {
+        long value = msb ^ Long.rotateLeft(lsb, 32);
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (int) (value ^ (value >>> 33));
+    }
+}
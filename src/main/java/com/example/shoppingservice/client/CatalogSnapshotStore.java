@@ -0,0 +1,243 @@
+package com.example.shoppingservice.client;
+
+import com.example.shoppingservice.model.Category;
+import com.example.shoppingservice.model.Manufacturer;
+import com.example.shoppingservice.model.Product;
+import com.example.shoppingservice.model.Review;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+@Component
+@Slf4j
+public class CatalogSnapshotStore {
+
+    static final int MAGIC = 0x43415453;
+    static final int FORMAT_VERSION = 2;
+    static final int HEADER_SIZE = 64;
+    static final int ROW_SIZE = 3 * Long.BYTES;
+    static final byte NULL_PRICE = Byte.MIN_VALUE;
+    static final byte WIDE_PRICE = Byte.MAX_VALUE;
+    static final long NULL_TIME = Long.MIN_VALUE;
+
+    private final ProductConfig config;
+
+    public CatalogSnapshotStore(final ProductConfig config) {
+        this.config = config;
+    }
+
+    public boolean isEnabled() {
+        return StringUtils.hasText(config.getCatalogSnapshotPath());
+    }
+
+    public Optional<MappedCatalog> open() {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        Path path = Path.of(config.getCatalogSnapshotPath());
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                log.warn("Ignoring catalog snapshot {} with unexpected size {}", path, channel.size());
+                return Optional.empty();
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return validate(path, buffer);
+        } catch (IOException e) {
+            log.warn("Unable to open catalog snapshot {}", path, e);
+            return Optional.empty();
+        }
+    }
+
+    public void write(final CatalogIndex index, final String version) {
+        if (!isEnabled()) {
+            return;
+        }
+        Path target = Path.of(config.getCatalogSnapshotPath()).toAbsolutePath();
+        Path temp = null;
+        try {
+            Files.createDirectories(target.getParent());
+            temp = Files.createTempFile(target.getParent(), target.getFileName() + ".", ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.position(HEADER_SIZE);
+                CRC32 checksum = new CRC32();
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                        new CheckedOutputStream(Channels.newOutputStream(channel), checksum), 1 << 16));
+
+                writeString(out, version);
+                long[] recordOffsets = new long[index.size()];
+                for (int row = 0; row < index.size(); row++) {
+                    recordOffsets[row] = HEADER_SIZE + out.size();
+                    writeProduct(out, index.materialize(row));
+                }
+                long rowsOffset = HEADER_SIZE + out.size();
+                for (int row = 0; row < index.size(); row++) {
+                    out.writeLong(index.idMsb(row));
+                    out.writeLong(index.idLsb(row));
+                    out.writeLong(recordOffsets[row]);
+                }
+                long slotsOffset = HEADER_SIZE + out.size();
+                for (int slot = 0; slot < index.slotCount(); slot++) {
+                    out.writeInt(index.slot(slot));
+                }
+                out.flush();
+                if (out.size() == Integer.MAX_VALUE) {
+                    throw new IOException("Catalog snapshot exceeds the mappable size");
+                }
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                        .putInt(MAGIC)
+                        .putInt(FORMAT_VERSION)
+                        .putLong(Instant.now().toEpochMilli())
+                        .putInt(index.size())
+                        .putInt(index.slotCount())
+                        .putLong(rowsOffset)
+                        .putLong(slotsOffset)
+                        .putLong(out.size())
+                        .putLong(checksum.getValue());
+                header.clear();
+                channel.write(header, 0);
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Wrote catalog snapshot with {} products to {}", index.size(), target);
+        } catch (IOException e) {
+            log.warn("Unable to write catalog snapshot {}", target, e);
+            deleteQuietly(temp);
+        }
+    }
+
+    private static void deleteQuietly(final Path temp) {
+        if (temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            log.debug("Unable to delete catalog snapshot temp file {}", temp, e);
+        }
+    }
+
+    private Optional<MappedCatalog> validate(final Path path, final MappedByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            log.warn("Ignoring catalog snapshot {} with unknown format", path);
+            return Optional.empty();
+        }
+        Instant writtenAt = Instant.ofEpochMilli(buffer.getLong(8));
+        if (writtenAt.plus(config.getCatalogSnapshotMaxAge()).isBefore(Instant.now())) {
+            log.info("Ignoring stale catalog snapshot {} written at {}", path, writtenAt);
+            return Optional.empty();
+        }
+        long bodyLength = buffer.getLong(40);
+        if (bodyLength != buffer.capacity() - HEADER_SIZE) {
+            log.warn("Ignoring truncated catalog snapshot {}", path);
+            return Optional.empty();
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.duplicate().position(HEADER_SIZE));
+        if (checksum.getValue() != buffer.getLong(48)) {
+            log.warn("Ignoring corrupt catalog snapshot {}", path);
+            return Optional.empty();
+        }
+        String version = MappedCatalog.readString(buffer.duplicate().position(HEADER_SIZE));
+        MappedCatalog catalog = new MappedCatalog(buffer, buffer.getInt(16), buffer.getInt(20),
+                (int) buffer.getLong(24), (int) buffer.getLong(32), writtenAt, version);
+        log.info("Opened catalog snapshot {} with {} products written at {}", path, catalog.size(), writtenAt);
+        return Optional.of(catalog);
+    }
+
+    private static void writeProduct(final DataOutputStream out, final Product product) throws IOException {
+        writeString(out, product.getName());
+        writeString(out, product.getDescription());
+        writePrice(out, product.getPrice());
+        writeManufacturer(out, product.getManufacturer());
+        List<Category> categories = product.getCategories();
+        out.writeInt(categories == null ? -1 : categories.size());
+        if (categories != null) {
+            for (Category category : categories) {
+                out.writeByte(category.ordinal());
+            }
+        }
+        writeDateTime(out, product.getCreatedAt());
+        writeDateTime(out, product.getUpdatedAt());
+        List<Review> reviews = product.getReviews();
+        out.writeInt(reviews == null ? -1 : reviews.size());
+        if (reviews != null) {
+            for (Review review : reviews) {
+                writeString(out, review.getReviewerName());
+                writeString(out, review.getComment());
+                out.writeInt(review.getRating());
+                writeDateTime(out, review.getReviewDate());
+            }
+        }
+    }
+
+    private static void writePrice(final DataOutputStream out, final BigDecimal price) throws IOException {
+        if (price == null) {
+            out.writeByte(NULL_PRICE);
+        } else if (price.unscaledValue().bitLength() < Long.SIZE && price.scale() >= 0 && price.scale() < WIDE_PRICE) {
+            out.writeByte(price.scale());
+            out.writeLong(price.unscaledValue().longValue());
+        } else {
+            out.writeByte(WIDE_PRICE);
+            writeString(out, price.toString());
+        }
+    }
+
+    private static void writeManufacturer(final DataOutputStream out, final Manufacturer manufacturer) throws IOException {
+        out.writeBoolean(manufacturer != null);
+        if (manufacturer != null) {
+            writeUuid(out, manufacturer.getId());
+            writeString(out, manufacturer.getName());
+            writeString(out, manufacturer.getAddress());
+            writeString(out, manufacturer.getContact());
+        }
+    }
+
+    private static void writeUuid(final DataOutputStream out, final UUID id) throws IOException {
+        out.writeBoolean(id != null);
+        if (id != null) {
+            out.writeLong(id.getMostSignificantBits());
+            out.writeLong(id.getLeastSignificantBits());
+        }
+    }
+
+    private static void writeDateTime(final DataOutputStream out, final LocalDateTime dateTime) throws IOException {
+        out.writeLong(dateTime == null ? NULL_TIME : dateTime.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(dateTime == null ? 0 : dateTime.getNano());
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.shoppingservice.client;
+
+import org.springframework.http.HttpHeaders;
+import reactor.core.publisher.Mono;
+
+interface CatalogSource {
+
+    Mono<CatalogDownload> download(String version);
+
+    String mode();
+
+    static void ifNoneMatch(final HttpHeaders headers, final String version) {
+        if (version != null) {
+            headers.setIfNoneMatch(version);
+        }
+    }
+}
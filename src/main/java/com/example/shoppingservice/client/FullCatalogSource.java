@@ -0,0 +1,63 @@
+package com.example.shoppingservice.client;
+
+import com.example.shoppingservice.model.Product;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+final class FullCatalogSource implements CatalogSource {
+
+    private final WebClient webClient;
+
+    private final CatalogDecoder decoder;
+
+    FullCatalogSource(final WebClient webClient, final CatalogDecoder decoder) {
+        this.webClient = webClient;
+        this.decoder = decoder;
+    }
+
+    @Override
+    public Mono<CatalogDownload> download(final String version) {
+        return webClient.get()
+                .uri("/products")
+                .headers(headers -> CatalogSource.ifNoneMatch(headers, version))
+                .exchangeToMono(response -> {
+                    if (response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                        return response.releaseBody().then(Mono.empty());
+                    }
+                    if (!response.statusCode().is2xxSuccessful()) {
+                        return response.createException().flatMap(Mono::error);
+                    }
+                    String newVersion = response.headers().asHttpHeaders().getETag();
+                    return decoder.decodeProducts(response)
+                            .map(products -> new CatalogDownload(products, newVersion));
+                });
+    }
+
+    @Override
+    public String mode() {
+        return "full";
+    }
+
+    Flux<Product> stream(final Consumer<CatalogDownload> onComplete) {
+        return Flux.defer(() -> {
+            List<Product> fetchedProducts = new ArrayList<>();
+            return webClient.get()
+                    .uri("/products")
+                    .exchangeToFlux(response -> {
+                        if (!response.statusCode().is2xxSuccessful()) {
+                            return response.createException().flatMapMany(Flux::error);
+                        }
+                        String version = response.headers().asHttpHeaders().getETag();
+                        return response.bodyToFlux(Product.class)
+                                .doOnNext(fetchedProducts::add)
+                                .doOnComplete(() -> onComplete.accept(new CatalogDownload(fetchedProducts, version)));
+                    });
+        });
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.shoppingservice.client;
+
+import com.example.shoppingservice.model.Category;
+import com.example.shoppingservice.model.Manufacturer;
+import com.example.shoppingservice.model.Product;
+import com.example.shoppingservice.model.Review;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static com.example.shoppingservice.client.CatalogSnapshotStore.NULL_PRICE;
+import static com.example.shoppingservice.client.CatalogSnapshotStore.NULL_TIME;
+import static com.example.shoppingservice.client.CatalogSnapshotStore.ROW_SIZE;
+import static com.example.shoppingservice.client.CatalogSnapshotStore.WIDE_PRICE;
+
+public final class MappedCatalog implements ProductCatalog {
+
+    private static final Category[] CATEGORIES = Category.values();
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int slotCount;
+    private final int rowsOffset;
+    private final int slotsOffset;
+    private final Instant writtenAt;
+    private final String version;
+
+    MappedCatalog(final ByteBuffer buffer, final int size, final int slotCount, final int rowsOffset,
+                  final int slotsOffset, final Instant writtenAt, final String version) {
+        this.buffer = buffer;
+        this.size = size;
+        this.slotCount = slotCount;
+        this.rowsOffset = rowsOffset;
+        this.slotsOffset = slotsOffset;
+        this.writtenAt = writtenAt;
+        this.version = version;
+    }
+
+    public Instant writtenAt() {
+        return writtenAt;
+    }
+
+    public String version() {
+        return version;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(final UUID productId) {
+        return indexOf(productId) >= 0;
+    }
+
+    @Override
+    public Product get(final UUID productId) {
+        int row = indexOf(productId);
+        return row < 0 ? null : materialize(row);
+    }
+
+    @Override
+    public List<Product> findAll(final Collection<UUID> productIds) {
+        int[] rows = new int[productIds.size()];
+        int matched = 0;
+        for (UUID productId : productIds) {
+            int row = indexOf(productId);
+            if (row >= 0) {
+                rows[matched++] = row;
+            }
+        }
+        Arrays.sort(rows, 0, matched);
+        List<Product> products = new ArrayList<>(matched);
+        for (int i = 0; i < matched; i++) {
+            if (i == 0 || rows[i] != rows[i - 1]) {
+                products.add(materialize(rows[i]));
+            }
+        }
+        return products;
+    }
+
+    @Override
+    public List<UUID> productIds() {
+        List<UUID> productIds = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            int position = rowsOffset + row * ROW_SIZE;
+            productIds.add(new UUID(buffer.getLong(position), buffer.getLong(position + Long.BYTES)));
+        }
+        return productIds;
+    }
+
+    public int indexOf(final UUID productId) {
+        long msb = productId.getMostSignificantBits();
+        long lsb = productId.getLeastSignificantBits();
+        int mask = slotCount - 1;
+        int slot = CatalogIndex.hash(msb, lsb) & mask;
+        while (true) {
+            int entry = buffer.getInt(slotsOffset + slot * Integer.BYTES);
+            if (entry == 0) {
+                return -1;
+            }
+            int position = rowsOffset + (entry - 1) * ROW_SIZE;
+            if (buffer.getLong(position) == msb && buffer.getLong(position + Long.BYTES) == lsb) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    @Override
+    public Product materialize(final int row) {
+        int position = rowsOffset + row * ROW_SIZE;
+        UUID id = new UUID(buffer.getLong(position), buffer.getLong(position + Long.BYTES));
+        ByteBuffer record = buffer.duplicate().position((int) buffer.getLong(position + 2 * Long.BYTES));
+        return Product.builder()
+                .id(id)
+                .name(readString(record))
+                .description(readString(record))
+                .price(readPrice(record))
+                .manufacturer(readManufacturer(record))
+                .categories(readCategories(record))
+                .createdAt(readDateTime(record))
+                .updatedAt(readDateTime(record))
+                .reviews(readReviews(record))
+                .build();
+    }
+
+    private static BigDecimal readPrice(final ByteBuffer record) {
+        byte scale = record.get();
+        return switch (scale) {
+            case NULL_PRICE -> null;
+            case WIDE_PRICE -> new BigDecimal(readString(record));
+            default -> BigDecimal.valueOf(record.getLong(), scale);
+        };
+    }
+
+    private static Manufacturer readManufacturer(final ByteBuffer record) {
+        if (record.get() == 0) {
+            return null;
+        }
+        UUID id = record.get() == 0 ? null : new UUID(record.getLong(), record.getLong());
+        return new Manufacturer(id, readString(record), readString(record), readString(record));
+    }
+
+    private static List<Category> readCategories(final ByteBuffer record) {
+        int count = record.getInt();
+        if (count < 0) {
+            return null;
+        }
+        List<Category> categories = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            categories.add(CATEGORIES[record.get()]);
+        }
+        return categories;
+    }
+
+    private static List<Review> readReviews(final ByteBuffer record) {
+        int count = record.getInt();
+        if (count < 0) {
+            return null;
+        }
+        List<Review> reviews = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            reviews.add(new Review(readString(record), readString(record), record.getInt(), readDateTime(record)));
+        }
+        return reviews;
+    }
+
+    private static LocalDateTime readDateTime(final ByteBuffer record) {
+        long seconds = record.getLong();
+        int nanos = record.getInt();
+        return seconds == NULL_TIME ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    static String readString(final ByteBuffer record) {
+        int length = record.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
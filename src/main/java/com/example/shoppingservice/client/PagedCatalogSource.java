@@ -0,0 +1,128 @@
+package com.example.shoppingservice.client;
+
+import com.example.shoppingservice.model.Product;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+@Slf4j
+final class PagedCatalogSource implements CatalogSource {
+
+    private final WebClient webClient;
+
+    private final ProductConfig config;
+
+    private final CatalogDecoder decoder;
+
+    private final Timer pageLatency;
+
+    private final DistributionSummary pageProducts;
+
+    private final Counter pageRetries;
+
+    private final Counter pagedFetchRestarts;
+
+    PagedCatalogSource(final WebClient webClient, final ProductConfig config, final CatalogDecoder decoder,
+                       final MeterRegistry meterRegistry) {
+        this.webClient = webClient;
+        this.config = config;
+        this.decoder = decoder;
+        this.pageLatency = meterRegistry.timer("shopping.catalog.fetch.page.latency");
+        this.pageProducts = meterRegistry.summary("shopping.catalog.fetch.page.products");
+        this.pageRetries = meterRegistry.counter("shopping.catalog.fetch.page.retries");
+        this.pagedFetchRestarts = meterRegistry.counter("shopping.catalog.fetch.restarts");
+    }
+
+    @Override
+    public Mono<CatalogDownload> download(final String version) {
+        return fetchPage(0, version)
+                .flatMap(first -> Flux.range(1, Math.max(0, first.page().totalPages() - 1))
+                        .flatMapSequential(page -> fetchPage(page, null).flatMap(download -> samePageVersion(first, download)),
+                                config.getPageConcurrency())
+                        .startWith(first.page())
+                        .concatMapIterable(page -> Objects.requireNonNullElse(page.content(), List.<Product>of()))
+                        .collectList()
+                        .map(products -> new CatalogDownload(products, first.version())))
+                .retryWhen(Retry.max(config.getPagedFetchRestarts())
+                        .filter(CatalogChangedException.class::isInstance)
+                        .doBeforeRetry(signal -> {
+                            pagedFetchRestarts.increment();
+                            log.debug("Restarting paged catalog fetch: {}", signal.failure().getMessage());
+                        })
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    @Override
+    public String mode() {
+        return "paged";
+    }
+
+    private static Mono<ProductPage> samePageVersion(final PageDownload first, final PageDownload download) {
+        if (first.version() != null && !first.version().equals(download.version())) {
+            return Mono.error(new CatalogChangedException("Catalog page " + download.page().number() + " has version "
+                    + download.version() + " but page 0 had " + first.version()));
+        }
+        return Mono.just(download.page());
+    }
+
+    private Mono<PageDownload> fetchPage(final int page, final String version) {
+        return Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return webClient.get()
+                            .uri(uriBuilder -> uriBuilder.path("/products")
+                                    .queryParam("page", page)
+                                    .queryParam("size", config.getPageSize())
+                                    .build())
+                            .headers(headers -> CatalogSource.ifNoneMatch(headers, version))
+                            .exchangeToMono(response -> {
+                                if (response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                                    return response.releaseBody().then(Mono.<PageDownload>empty());
+                                }
+                                if (!response.statusCode().is2xxSuccessful()) {
+                                    return response.createException().flatMap(Mono::<PageDownload>error);
+                                }
+                                String pageVersion = response.headers().asHttpHeaders().getETag();
+                                return decoder.decode(response, ProductPage.class)
+                                        .map(productPage -> new PageDownload(productPage, pageVersion));
+                            })
+                            .doOnNext(download -> {
+                                pageLatency.record(Duration.ofNanos(System.nanoTime() - start));
+                                pageProducts.record(download.page().content() == null ? 0 : download.page().content().size());
+                            });
+                })
+                .retryWhen(Retry.backoff(config.getPageRetries(), config.getPageRetryBackoff())
+                        .filter(PagedCatalogSource::isRetryable)
+                        .doBeforeRetry(signal -> {
+                            pageRetries.increment();
+                            log.debug("Retrying catalog page {} after {}", page, signal.failure().toString());
+                        })
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    private static boolean isRetryable(final Throwable error) {
+        return !(error instanceof WebClientResponseException responseException)
+                || responseException.getStatusCode().is5xxServerError();
+    }
+
+    private record PageDownload(ProductPage page, String version) {
+    }
+
+    private static class CatalogChangedException extends IllegalStateException {
+
+        CatalogChangedException(final String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.shoppingservice.client;
+
+import com.example.shoppingservice.model.Product;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface ProductCatalog {
+
+    int size();
+
+    boolean contains(UUID productId);
+
+    Product get(UUID productId);
+
+    List<Product> findAll(Collection<UUID> productIds);
+
+    List<UUID> productIds();
+
+    Product materialize(int row);
+}
@@ -1,28 +1,273 @@
 package com.example.shoppingservice.client;
 
+import com.example.shoppingservice.deadline.Deadline;
+import com.example.shoppingservice.lifecycle.PendingWorkTracker;
 import com.example.shoppingservice.model.Product;
+import com.example.shoppingservice.runtime.CpuBoundScheduler;
+import com.example.shoppingservice.tracing.ReactiveObservations;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToDoubleFunction;
 
 @Service
+@Slf4j
 public class ProductClient {
 
-    private final WebClient webClient;
-
     private final ProductConfig config;
 
+    private final Counter bloomFilterRejections;
+
+    private final MeterRegistry meterRegistry;
+
+    private final CatalogSnapshotStore snapshotStore;
+
+    private final PendingWorkTracker pendingWork;
+
+    private final CpuBoundScheduler cpuBoundScheduler;
+
+    private final ObservationRegistry observationRegistry;
+
+    private final FullCatalogSource fullSource;
+
+    private final PagedCatalogSource pagedSource;
+
+    private final CatalogDeltaSource deltaSource;
+
+    private final AtomicReference<Mono<ProductCatalog>> inFlightRefresh = new AtomicReference<>();
+
+    private volatile ProductIdBloomFilter productIdFilter;
+
+    private volatile ProductCatalog catalog;
+
+    private volatile String catalogVersion;
+
+    private volatile long catalogExpiresAt;
+
     @Autowired
-    public ProductClient(WebClient.Builder webClientBuilder, ProductConfig config) {
-        this.webClient = WebClient.builder().baseUrl(config.getUrl()).build();
+    public ProductClient(WebClient.Builder webClientBuilder, ProductConfig config, CatalogSnapshotStore snapshotStore,
+                         MeterRegistry meterRegistry, PendingWorkTracker pendingWork, CpuBoundScheduler cpuBoundScheduler,
+                         ObjectMapper objectMapper, ObservationRegistry observationRegistry) {
+        WebClient webClient = WebClient.builder()
+                .baseUrl(config.getUrl())
+                .observationRegistry(observationRegistry)
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(config.getMaxResponseBytes()))
+                .build();
+        CatalogDecoder decoder = new CatalogDecoder(cpuBoundScheduler, objectMapper, observationRegistry);
+        this.fullSource = new FullCatalogSource(webClient, decoder);
+        this.pagedSource = new PagedCatalogSource(webClient, config, decoder, meterRegistry);
+        this.deltaSource = new CatalogDeltaSource(webClient, decoder);
+        this.cpuBoundScheduler = cpuBoundScheduler;
+        this.observationRegistry = observationRegistry;
         this.config = config;
+        this.snapshotStore = snapshotStore;
+        this.pendingWork = pendingWork;
+        this.meterRegistry = meterRegistry;
+        this.bloomFilterRejections = meterRegistry.counter("shopping.catalog.bloom.rejections");
+        Gauge.builder("shopping.catalog.bloom.entries", this, client -> client.filterStat(ProductIdBloomFilter::entries))
+                .register(meterRegistry);
+        Gauge.builder("shopping.catalog.bloom.memory", this, client -> client.filterStat(ProductIdBloomFilter::memoryBytes))
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("shopping.catalog.bloom.false.positive.rate", this, client -> client.filterStat(ProductIdBloomFilter::expectedFalsePositiveRate))
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void loadCatalogSnapshot() {
+        snapshotStore.open().ifPresent(snapshot -> installCatalog(snapshot, snapshot.productIds(), snapshot.version(), false));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void refreshCatalogAfterStartup() {
+        if (catalog != null) {
+            sharedRefresh().subscribe(null, err -> log.warn("Background catalog refresh failed", err));
+        }
     }
 
     public Flux<Product> getAllProducts() {
-        return webClient.get()
-                .uri("/products")
-                .retrieve()
-                .bodyToFlux(Product.class);
+        if (config.isPagedFetch()) {
+            return ReactiveObservations.observe(pagedSource.download(null), observationRegistry,
+                            "shopping.catalog.fetch", "mode", "paged")
+                    .flatMapIterable(download -> {
+                        rebuildCatalog(download.products(), download.version());
+                        return download.products();
+                    });
+        }
+        return ReactiveObservations.observe(fullSource.stream(download -> rebuildCatalog(download.products(), download.version())),
+                observationRegistry, "shopping.catalog.fetch", "mode", "stream");
+    }
+
+    public Flux<Product> getProducts(final Collection<UUID> productIds) {
+        return Deadline.bound(currentCatalog(), "search-service")
+                .flatMapIterable(current -> current.findAll(productIds));
+    }
+
+    public Mono<Void> refreshCatalog() {
+        return sharedRefresh().then();
+    }
+
+    public Flux<UUID> sampleProductIds(final int limit) {
+        return currentCatalog()
+                .flatMapIterable(ProductCatalog::productIds)
+                .take(limit);
+    }
+
+    public boolean isDefinitelyUnknown(final Collection<UUID> productIds) {
+        ProductIdBloomFilter filter = productIdFilter;
+        if (filter == null || productIds == null || productIds.isEmpty()) {
+            return false;
+        }
+        boolean unknown = productIds.stream().noneMatch(filter::mightContain);
+        if (unknown) {
+            bloomFilterRejections.increment();
+        }
+        return unknown;
+    }
+
+    private Mono<ProductCatalog> currentCatalog() {
+        return Mono.defer(() -> {
+            ProductCatalog current = catalog;
+            if (current == null) {
+                return sharedRefresh();
+            }
+            if (System.nanoTime() - catalogExpiresAt >= 0) {
+                sharedRefresh().subscribe(null, err -> log.warn("Background catalog refresh failed", err));
+            }
+            return Mono.just(current);
+        });
+    }
+
+    private Mono<ProductCatalog> sharedRefresh() {
+        while (true) {
+            Mono<ProductCatalog> inFlight = inFlightRefresh.get();
+            if (inFlight != null) {
+                return inFlight;
+            }
+            AtomicReference<Mono<ProductCatalog>> self = new AtomicReference<>();
+            Mono<ProductCatalog> refresh = ReactiveObservations.observe(Mono.defer(this::fetchCatalog), observationRegistry,
+                            "shopping.catalog.fetch", "mode", fetchMode())
+                    .doOnTerminate(() -> inFlightRefresh.compareAndSet(self.get(), null))
+                    .doOnCancel(() -> inFlightRefresh.compareAndSet(self.get(), null))
+                    .cache();
+            self.set(refresh);
+            if (inFlightRefresh.compareAndSet(null, refresh)) {
+                return refresh;
+            }
+        }
+    }
+
+    private Mono<ProductCatalog> fetchCatalog() {
+        ProductCatalog current = catalog;
+        String version = catalogVersion;
+        if (current == null || version == null) {
+            return fetchFullCatalog(null);
+        }
+        if (!config.isDeltaRefresh()) {
+            return fetchFullCatalog(version);
+        }
+        return fetchCatalogDelta(current, version)
+                .onErrorResume(WebClientResponseException.class, e -> {
+                    log.debug("Catalog delta unavailable ({}), falling back to conditional fetch", e.getStatusCode());
+                    recordRefresh("delta_fallback");
+                    return fetchFullCatalog(version);
+                });
+    }
+
+    private String fetchMode() {
+        if (catalog != null && catalogVersion != null && config.isDeltaRefresh()) {
+            return "delta";
+        }
+        return catalogSource().mode();
+    }
+
+    private CatalogSource catalogSource() {
+        return config.isPagedFetch() ? pagedSource : fullSource;
+    }
+
+    private Mono<ProductCatalog> fetchFullCatalog(final String version) {
+        return catalogSource().download(version)
+                .flatMap(fetched -> cpuBoundScheduler.run(() -> {
+                    rebuildCatalog(fetched.products(), fetched.version());
+                    recordRefresh("full");
+                    return catalog;
+                }))
+                .switchIfEmpty(Mono.fromSupplier(this::keepCurrentCatalog));
+    }
+
+    private Mono<ProductCatalog> fetchCatalogDelta(final ProductCatalog current, final String version) {
+        return deltaSource.changesSince(version)
+                .flatMap(delta -> cpuBoundScheduler.run(() -> {
+                    CatalogIndex merged = CatalogIndex.merge(current,
+                            Objects.requireNonNullElse(delta.upserted(), List.of()),
+                            Objects.requireNonNullElse(delta.removed(), List.of()));
+                    installCatalog(merged, merged.productIds(), delta.version(), true);
+                    writeSnapshot(merged, delta.version());
+                    recordRefresh("delta");
+                    return (ProductCatalog) merged;
+                }))
+                .switchIfEmpty(Mono.fromSupplier(this::keepCurrentCatalog));
+    }
+
+    private ProductCatalog keepCurrentCatalog() {
+        catalogExpiresAt = System.nanoTime() + config.getCatalogTtl().toNanos();
+        recordRefresh("not_modified");
+        return catalog;
+    }
+
+    private void rebuildCatalog(final List<Product> products, final String version) {
+        CatalogIndex index = CatalogIndex.of(products);
+        List<UUID> productIds = products.stream()
+                .map(Product::getId)
+                .filter(Objects::nonNull)
+                .toList();
+        installCatalog(index, productIds, version, true);
+        writeSnapshot(index, version);
+    }
+
+    private void writeSnapshot(final CatalogIndex index, final String version) {
+        if (snapshotStore.isEnabled()) {
+            pendingWork.track(Mono.fromRunnable(() -> snapshotStore.write(index, version))
+                            .subscribeOn(Schedulers.boundedElastic()))
+                    .subscribe(null, err -> log.warn("Failed to write catalog snapshot", err));
+        }
+    }
+
+    private void installCatalog(final ProductCatalog newCatalog, final List<UUID> productIds, final String version,
+                                final boolean fresh) {
+        productIdFilter = ProductIdBloomFilter.of(productIds, config.getBloomFilterFalsePositiveRate());
+        catalog = newCatalog;
+        catalogVersion = version;
+        catalogExpiresAt = fresh ? System.nanoTime() + config.getCatalogTtl().toNanos() : System.nanoTime();
+        log.debug("Installed catalog version {} with {} products, product ID filter uses {} bytes",
+                version, newCatalog.size(), productIdFilter.memoryBytes());
+    }
+
+    private void recordRefresh(final String outcome) {
+        meterRegistry.counter("shopping.catalog.refresh", "outcome", outcome).increment();
+    }
+
+    private double filterStat(final ToDoubleFunction<ProductIdBloomFilter> stat) {
+        ProductIdBloomFilter filter = productIdFilter;
+        return filter == null ? 0 : stat.applyAsDouble(filter);
     }
 }
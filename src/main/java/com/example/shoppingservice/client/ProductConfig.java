@@ -5,6 +5,8 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 @Component
 @ConfigurationProperties(prefix = "internal.api.search-service")
 @Getter
@@ -12,4 +14,16 @@ import org.springframework.stereotype.Component;
 public class ProductConfig {
 
     private String url;
+    private double bloomFilterFalsePositiveRate = 0.01;
+    private Duration catalogTtl = Duration.ofSeconds(30);
+    private boolean deltaRefresh = false;
+    private boolean pagedFetch = false;
+    private int pageSize = 1000;
+    private int pageConcurrency = 4;
+    private int pageRetries = 3;
+    private Duration pageRetryBackoff = Duration.ofMillis(200);
+    private int pagedFetchRestarts = 2;
+    private int maxResponseBytes = 64 * 1024 * 1024;
+    private String catalogSnapshotPath;
+    private Duration catalogSnapshotMaxAge = Duration.ofHours(24);
 }
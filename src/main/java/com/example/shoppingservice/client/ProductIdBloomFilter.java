@@ -0,0 +1,67 @@
+package com.example.shoppingservice.client;
+
+import java.util.Collection;
+import java.util.UUID;
+
+public final class ProductIdBloomFilter {
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashFunctions;
+    private final int entries;
+
+    private ProductIdBloomFilter(final long bitCount, final int hashFunctions, final int entries) {
+        this.bits = new long[(int) ((bitCount + 63) >>> 6)];
+        this.bitCount = bitCount;
+        this.hashFunctions = hashFunctions;
+        this.entries = entries;
+    }
+
+    public static ProductIdBloomFilter of(final Collection<UUID> productIds, final double falsePositiveRate) {
+        int expected = Math.max(productIds.size(), 1);
+        long bitCount = Math.max(64, (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        int hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expected * Math.log(2)));
+        ProductIdBloomFilter filter = new ProductIdBloomFilter(bitCount, hashFunctions, productIds.size());
+        productIds.forEach(filter::put);
+        return filter;
+    }
+
+    public boolean mightContain(final UUID productId) {
+        long h1 = mix(productId.getMostSignificantBits());
+        long h2 = mix(productId.getLeastSignificantBits()) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int entries() {
+        return entries;
+    }
+
+    public long memoryBytes() {
+        return (long) bits.length * Long.BYTES;
+    }
+
+    public double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hashFunctions * entries / bitCount), hashFunctions);
+    }
+
+    private void put(final UUID productId) {
+        long h1 = mix(productId.getMostSignificantBits());
+        long h2 = mix(productId.getLeastSignificantBits()) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+}
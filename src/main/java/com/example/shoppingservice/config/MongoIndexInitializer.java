@@ -0,0 +1,34 @@
+package com.example.shoppingservice.config;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+@Component
+@AllArgsConstructor
+@Slf4j
+public class MongoIndexInitializer {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        IndexResolver resolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+        Flux.fromIterable(mongoTemplate.getConverter().getMappingContext().getPersistentEntities())
+                .filter(entity -> entity.isAnnotationPresent(Document.class))
+                .concatMap(entity -> Flux.fromIterable(resolver.resolveIndexFor(entity.getTypeInformation()))
+                        .concatMap(index -> mongoTemplate.indexOps(entity.getType()).ensureIndex(index))
+                        .doOnComplete(() -> log.debug("Ensured indexes for {}", entity.getCollection())))
+                .retryWhen(Retry.backoff(5, Duration.ofSeconds(2)))
+                .subscribe(null, err -> log.warn("Failed to ensure Mongo indexes", err));
+    }
+}
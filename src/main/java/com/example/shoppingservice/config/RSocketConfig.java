@@ -0,0 +1,27 @@
+package com.example.shoppingservice.config;
+
+import com.example.shoppingservice.admission.AdmissionRSocketInterceptor;
+import com.example.shoppingservice.deadline.DeadlineRSocketInterceptor;
+import jakarta.validation.Validator;
+import org.springframework.boot.autoconfigure.rsocket.RSocketMessageHandlerCustomizer;
+import org.springframework.boot.rsocket.server.RSocketServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+@Configuration
+public class RSocketConfig {
+
+    @Bean
+    public RSocketServerCustomizer rsocketInterceptors(final AdmissionRSocketInterceptor admission,
+                                                       final DeadlineRSocketInterceptor deadline) {
+        return server -> server.interceptors(registry -> registry
+                .forResponder(deadline)
+                .forResponder(admission));
+    }
+
+    @Bean
+    public RSocketMessageHandlerCustomizer rsocketValidation(final Validator validator) {
+        return handler -> handler.setValidator(new SpringValidatorAdapter(validator));
+    }
+}
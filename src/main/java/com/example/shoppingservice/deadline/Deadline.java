@@ -0,0 +1,57 @@
+package com.example.shoppingservice.deadline;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.Optional;
+
+public record Deadline(long expiresAtNanos) {
+
+    public static Deadline after(final Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    public static Optional<Deadline> from(final ContextView context) {
+        return context.getOrEmpty(Deadline.class);
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    public static <T> Mono<T> start(final Mono<T> work, final Duration timeout, final Duration grace) {
+        return Mono.defer(() -> {
+            Deadline deadline = after(timeout);
+            return bound(work, "request", grace)
+                    .contextWrite(context -> context.put(Deadline.class, deadline));
+        });
+    }
+
+    public static <T> Flux<T> start(final Flux<T> work, final Duration timeout, final Duration grace) {
+        return Flux.defer(() -> {
+            Deadline deadline = after(timeout);
+            return work.timeout(Mono.delay(deadline.remaining().plus(grace)),
+                            item -> Mono.delay(deadline.remaining().plus(grace)),
+                            Flux.error(() -> new DeadlineExceededException("request")))
+                    .contextWrite(context -> context.put(Deadline.class, deadline));
+        });
+    }
+
+    public static <T> Mono<T> bound(final Mono<T> work, final String stage) {
+        return bound(work, stage, Duration.ZERO);
+    }
+
+    public static <T> Mono<T> bound(final Mono<T> work, final String stage, final Duration grace) {
+        return Mono.deferContextual(context -> from(context)
+                .map(deadline -> deadline.isExpired() && grace.isZero()
+                        ? Mono.<T>error(new DeadlineExceededException(stage))
+                        : work.timeout(deadline.remaining().plus(grace), Mono.error(() -> new DeadlineExceededException(stage))))
+                .orElse(work));
+    }
+}
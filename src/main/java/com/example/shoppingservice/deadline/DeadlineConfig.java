@@ -0,0 +1,27 @@
+package com.example.shoppingservice.deadline;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "shopping.deadline")
+@Getter
+@Setter
+public class DeadlineConfig {
+
+    private String header = "X-Request-Timeout";
+    private Duration defaultTimeout = Duration.ofSeconds(5);
+    private Duration maxTimeout = Duration.ofSeconds(30);
+    private Duration requestGrace = Duration.ofMillis(50);
+    private Map<String, Duration> endpointTimeouts = new HashMap<>();
+
+    public Duration timeoutFor(final String method) {
+        return endpointTimeouts.getOrDefault(method, defaultTimeout);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.shoppingservice.deadline;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+@Getter
+public class DeadlineExceededException extends ResponseStatusException {
+
+    private final String stage;
+
+    public DeadlineExceededException(final String stage) {
+        super(HttpStatus.GATEWAY_TIMEOUT, "Request deadline exceeded");
+        this.stage = stage;
+    }
+}
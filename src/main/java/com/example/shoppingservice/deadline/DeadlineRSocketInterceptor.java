@@ -0,0 +1,49 @@
+package com.example.shoppingservice.deadline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.plugins.RSocketInterceptor;
+import io.rsocket.util.RSocketProxy;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Component
+@AllArgsConstructor
+public class DeadlineRSocketInterceptor implements RSocketInterceptor {
+
+    public static final String METHOD = "RSOCKET";
+
+    private final DeadlineConfig config;
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public RSocket apply(final RSocket rsocket) {
+        return new RSocketProxy(rsocket) {
+            @Override
+            public Mono<Void> fireAndForget(final Payload payload) {
+                return Deadline.start(super.fireAndForget(payload), config.timeoutFor(METHOD), config.getRequestGrace())
+                        .doOnError(DeadlineExceededException.class, DeadlineRSocketInterceptor.this::record);
+            }
+
+            @Override
+            public Mono<Payload> requestResponse(final Payload payload) {
+                return Deadline.start(super.requestResponse(payload), config.timeoutFor(METHOD), config.getRequestGrace())
+                        .doOnError(DeadlineExceededException.class, DeadlineRSocketInterceptor.this::record);
+            }
+
+            @Override
+            public Flux<Payload> requestStream(final Payload payload) {
+                return Deadline.start(super.requestStream(payload), config.timeoutFor(METHOD), config.getRequestGrace())
+                        .doOnError(DeadlineExceededException.class, DeadlineRSocketInterceptor.this::record);
+            }
+        };
+    }
+
+    private void record(final DeadlineExceededException error) {
+        meterRegistry.counter("shopping.request.deadline.expired", "method", METHOD, "stage", error.getStage()).increment();
+    }
+}
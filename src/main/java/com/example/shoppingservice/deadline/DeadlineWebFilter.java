@@ -0,0 +1,56 @@
+package com.example.shoppingservice.deadline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+@Component
+@AllArgsConstructor
+public class DeadlineWebFilter implements WebFilter {
+
+    private static final String CART_PATH = "/shopping/cart";
+
+    private static final String EVENTS_SUFFIX = "/events";
+
+    private final DeadlineConfig config;
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+        String path = exchange.getRequest().getPath().pathWithinApplication().value();
+        if (!path.startsWith(CART_PATH) || path.endsWith(EVENTS_SUFFIX)) {
+            return chain.filter(exchange);
+        }
+        return Mono.defer(() -> Deadline.start(chain.filter(exchange), timeout(exchange), config.getRequestGrace()))
+                .doOnError(DeadlineExceededException.class, err -> meterRegistry.counter(
+                        "shopping.request.deadline.expired",
+                        "method", exchange.getRequest().getMethod().name(),
+                        "stage", err.getStage()).increment());
+    }
+
+    private Duration timeout(final ServerWebExchange exchange) {
+        String requested = exchange.getRequest().getHeaders().getFirst(config.getHeader());
+        if (requested == null) {
+            return config.timeoutFor(exchange.getRequest().getMethod().name());
+        }
+        try {
+            long millis = Long.parseLong(requested.trim());
+            if (millis <= 0) {
+                throw new NumberFormatException(requested);
+            }
+            Duration timeout = Duration.ofMillis(millis);
+            return timeout.compareTo(config.getMaxTimeout()) > 0 ? config.getMaxTimeout() : timeout;
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + config.getHeader() + " header");
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.shoppingservice.events;
+
+import com.example.shoppingservice.model.ShoppingCart;
+
+import java.util.UUID;
+
+public record CartEvent(UUID cartId, Long version, Type type, ShoppingCart cart) {
+
+    public enum Type { UPDATED, DELETED }
+
+    public static CartEvent updated(final ShoppingCart cart) {
+        return new CartEvent(cart.getId(), cart.getVersion(), Type.UPDATED, cart);
+    }
+
+    public static CartEvent deleted(final UUID cartId) {
+        return new CartEvent(cartId, null, Type.DELETED, null);
+    }
+}
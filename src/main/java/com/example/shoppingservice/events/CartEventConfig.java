@@ -0,0 +1,19 @@
+package com.example.shoppingservice.events;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "shopping.events")
+@Getter
+@Setter
+public class CartEventConfig {
+
+    private Duration heartbeat = Duration.ofSeconds(15);
+    private int subscriberBuffer = 16;
+    private int maxSubscribers = 10_000;
+}
@@ -0,0 +1,116 @@
+package com.example.shoppingservice.events;
+
+import com.example.shoppingservice.model.ShoppingCart;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class CartEventHub {
+
+    private final CartEventConfig config;
+
+    private final Map<UUID, Channel> channels = new ConcurrentHashMap<>();
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    private final Counter published;
+
+    private final Counter dropped;
+
+    public CartEventHub(final CartEventConfig config, final MeterRegistry meterRegistry) {
+        this.config = config;
+        this.published = meterRegistry.counter("shopping.cart.events.published");
+        this.dropped = meterRegistry.counter("shopping.cart.events.dropped");
+        Gauge.builder("shopping.cart.events.subscribers", subscribers, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    public void publish(final CartEvent event) {
+        Channel channel = channels.get(event.cartId());
+        if (channel != null) {
+            channel.sink().emitNext(event, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(10)));
+            published.increment();
+        }
+    }
+
+    public Flux<CartEvent> subscribe(final UUID cartId, final Long sinceVersion, final Mono<ShoppingCart> current) {
+        return Flux.defer(() -> {
+            if (subscribers.incrementAndGet() > config.getMaxSubscribers()) {
+                subscribers.decrementAndGet();
+                return Flux.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many cart event subscribers"));
+            }
+            Channel channel = join(cartId);
+            AtomicLong lastVersion = new AtomicLong(sinceVersion == null ? -1 : sinceVersion);
+            return Flux.merge(current.map(CartEvent::updated), channel.sink().asFlux())
+                    .filter(event -> event.type() == CartEvent.Type.DELETED || isNewer(lastVersion, event.version()))
+                    .takeUntil(event -> event.type() == CartEvent.Type.DELETED)
+                    .onBackpressureBuffer(config.getSubscriberBuffer(), event -> dropped.increment(),
+                            BufferOverflowStrategy.DROP_OLDEST)
+                    .doFinally(signal -> {
+                        subscribers.decrementAndGet();
+                        leave(cartId, channel);
+                    });
+        });
+    }
+
+    public boolean isWatched(final UUID cartId) {
+        return channels.containsKey(cartId);
+    }
+
+    public Set<UUID> watchedCartIds() {
+        return Set.copyOf(channels.keySet());
+    }
+
+    int channelCount() {
+        return channels.size();
+    }
+
+    private Channel join(final UUID cartId) {
+        return channels.compute(cartId, (id, existing) -> {
+            Channel channel = existing != null
+                    ? existing
+                    : new Channel(Sinks.many().multicast().directBestEffort(), new AtomicInteger());
+            channel.subscribers().incrementAndGet();
+            return channel;
+        });
+    }
+
+    private void leave(final UUID cartId, final Channel channel) {
+        channels.computeIfPresent(cartId, (id, existing) ->
+                existing == channel && channel.subscribers().decrementAndGet() == 0 ? null : existing);
+    }
+
+    private static boolean isNewer(final AtomicLong lastVersion, final Long version) {
+        if (version == null) {
+            return true;
+        }
+        while (true) {
+            long last = lastVersion.get();
+            if (version <= last) {
+                return false;
+            }
+            if (lastVersion.compareAndSet(last, version)) {
+                return true;
+            }
+        }
+    }
+
+    private record Channel(Sinks.Many<CartEvent> sink, AtomicInteger subscribers) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.shoppingservice.idempotency;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "shopping.idempotency")
+@Getter
+@Setter
+public class IdempotencyConfig {
+
+    private int maxEntries = 10_000;
+    private Duration ttl = Duration.ofHours(24);
+    private boolean mongoBacked = false;
+    private Duration remotePollInterval = Duration.ofMillis(100);
+    private Duration remoteWaitTimeout = Duration.ofSeconds(10);
+    private Duration claimLease = Duration.ofSeconds(30);
+}
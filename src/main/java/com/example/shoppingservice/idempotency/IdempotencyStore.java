@@ -0,0 +1,213 @@
+package com.example.shoppingservice.idempotency;
+
+import com.example.shoppingservice.model.IdempotencyRecord;
+import com.example.shoppingservice.model.ShoppingCart;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@Component
+@Slf4j
+public class IdempotencyStore {
+
+    private final IdempotencyConfig config;
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Entry> entries;
+
+    public IdempotencyStore(final IdempotencyConfig config, final ReactiveMongoTemplate mongoTemplate,
+                            final MeterRegistry meterRegistry) {
+        this.config = config;
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                return size() > config.getMaxEntries();
+            }
+        };
+        Gauge.builder("shopping.idempotency.entries", this, IdempotencyStore::size)
+                .register(meterRegistry);
+    }
+
+    public Mono<ShoppingCart> execute(final String key, final String fingerprint, final Supplier<Mono<ShoppingCart>> work) {
+        return Mono.defer(() -> {
+            Entry entry;
+            boolean duplicate;
+            synchronized (entries) {
+                entry = entries.get(key);
+                if (entry != null && entry.expiresAtNanos() - System.nanoTime() <= 0) {
+                    entries.remove(key);
+                    entry = null;
+                }
+                duplicate = entry != null;
+                if (!duplicate) {
+                    Mono<ShoppingCart> result = executeOnce(key, fingerprint, work)
+                            .doOnError(err -> evict(key))
+                            .doOnCancel(() -> evict(key))
+                            .share();
+                    entry = new Entry(fingerprint, result, System.nanoTime() + config.getTtl().toNanos());
+                    entries.put(key, entry);
+                }
+            }
+            if (!entry.fingerprint().equals(fingerprint)) {
+                record("mismatch");
+                return Mono.error(keyReused());
+            }
+            record(duplicate ? "duplicate" : "new");
+            return entry.result();
+        });
+    }
+
+    public static String fingerprint(final String operation, final UUID cartId, final Long expectedVersion,
+                                     final List<UUID> productIds, final String owner) {
+        StringBuilder canonical = new StringBuilder()
+                .append(operation).append('\n')
+                .append(cartId).append('\n')
+                .append(expectedVersion).append('\n')
+                .append(owner).append('\n');
+        productIds.forEach(productId -> canonical.append(productId).append(','));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private Mono<ShoppingCart> executeOnce(final String key, final String fingerprint, final Supplier<Mono<ShoppingCart>> work) {
+        if (!config.isMongoBacked()) {
+            return Mono.defer(work);
+        }
+        return Mono.defer(() -> {
+            Instant now = Instant.now();
+            IdempotencyRecord claim = IdempotencyRecord.builder()
+                    .id(key)
+                    .fingerprint(fingerprint)
+                    .completed(false)
+                    .claimExpiresAt(now.plus(config.getClaimLease()))
+                    .expiresAt(now.plus(config.getTtl()))
+                    .build();
+            return mongoTemplate.insert(claim)
+                    .thenReturn(true)
+                    .onErrorResume(DuplicateKeyException.class, err -> Mono.just(false))
+                    .flatMap(claimed -> claimed
+                            ? runAndStore(claim, work)
+                            : awaitRemote(key, fingerprint, work));
+        });
+    }
+
+    private Mono<ShoppingCart> runAndStore(final IdempotencyRecord claim, final Supplier<Mono<ShoppingCart>> work) {
+        return Mono.defer(work)
+                .flatMap(cart -> {
+                    claim.setCompleted(true);
+                    claim.setResponse(cart);
+                    return mongoTemplate.save(claim).thenReturn(cart);
+                })
+                .onErrorResume(err -> release(claim).then(Mono.error(err)))
+                .doOnCancel(() -> release(claim).subscribe());
+    }
+
+    private Mono<ShoppingCart> awaitRemote(final String key, final String fingerprint, final Supplier<Mono<ShoppingCart>> work) {
+        return Mono.defer(() -> mongoTemplate.findById(key, IdempotencyRecord.class))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(existing -> resolve(existing, key, fingerprint, work))
+                .repeatWhenEmpty(attempts -> attempts.delayElements(config.getRemotePollInterval()))
+                .timeout(config.getRemoteWaitTimeout())
+                .onErrorMap(TimeoutException.class, err -> new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Request with this idempotency key is still in progress"))
+                .flatMap(Supplier::get);
+    }
+
+    private Mono<Supplier<Mono<ShoppingCart>>> resolve(final Optional<IdempotencyRecord> existing, final String key,
+                                                       final String fingerprint, final Supplier<Mono<ShoppingCart>> work) {
+        if (existing.isEmpty()) {
+            return Mono.just(() -> executeOnce(key, fingerprint, work));
+        }
+        IdempotencyRecord record = existing.get();
+        if (!record.getFingerprint().equals(fingerprint)) {
+            return Mono.error(keyReused());
+        }
+        if (record.isCompleted()) {
+            return Mono.just(() -> Mono.just(record.getResponse()));
+        }
+        if (record.getClaimExpiresAt() != null && record.getClaimExpiresAt().isAfter(Instant.now())) {
+            return Mono.empty();
+        }
+        return takeOver(record).map(claim -> () -> runAndStore(claim, work));
+    }
+
+    private Mono<IdempotencyRecord> takeOver(final IdempotencyRecord stale) {
+        Update update = new Update().set("claimExpiresAt", Instant.now().plus(config.getClaimLease()));
+        return mongoTemplate.findAndModify(heldClaim(stale), update, FindAndModifyOptions.options().returnNew(true),
+                        IdempotencyRecord.class)
+                .doOnNext(claim -> log.info("Took over abandoned idempotency key {}", claim.getId()));
+    }
+
+    private Mono<Void> release(final IdempotencyRecord claim) {
+        return mongoTemplate.remove(heldClaim(claim), IdempotencyRecord.class)
+                .then()
+                .onErrorResume(err -> {
+                    log.warn("Failed to release idempotency key {}", claim.getId(), err);
+                    return Mono.empty();
+                });
+    }
+
+    private static Query heldClaim(final IdempotencyRecord claim) {
+        return new Query(where("id").is(claim.getId())
+                .and("completed").is(false)
+                .and("claimExpiresAt").is(claim.getClaimExpiresAt()));
+    }
+
+    private void evict(final String key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    private void record(final String outcome) {
+        meterRegistry.counter("shopping.idempotency.requests", "outcome", outcome).increment();
+    }
+
+    private static ResponseStatusException keyReused() {
+        return new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                "Idempotency key was already used for a different request");
+    }
+
+    private record Entry(String fingerprint, Mono<ShoppingCart> result, long expiresAtNanos) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.shoppingservice.lifecycle;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "shopping.lifecycle")
+@Getter
+@Setter
+public class LifecycleConfig {
+
+    private boolean warmupEnabled = true;
+    private int warmupIterations = 200;
+    private int warmupConcurrency = 8;
+    private int warmupSampleSize = 20;
+    private Duration warmupTimeout = Duration.ofSeconds(60);
+    private Duration drainTimeout = Duration.ofSeconds(20);
+    private boolean trainingRun = false;
+}
@@ -0,0 +1,93 @@
+package com.example.shoppingservice.lifecycle;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+@Slf4j
+public class PendingWorkTracker implements SmartLifecycle {
+
+    static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 1536;
+
+    private final LifecycleConfig config;
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final Object drained = new Object();
+
+    private volatile boolean running;
+
+    public PendingWorkTracker(final LifecycleConfig config) {
+        this.config = config;
+    }
+
+    public <T> Mono<T> track(final Mono<T> work) {
+        return Mono.defer(() -> {
+            pending.incrementAndGet();
+            return work.doFinally(signal -> release());
+        });
+    }
+
+    public int pending() {
+        return pending.get();
+    }
+
+    public boolean awaitDrained(final long timeout, final TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (drained) {
+            while (pending.get() > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(drained, remaining);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        int inFlight = pending.get();
+        if (inFlight == 0) {
+            return;
+        }
+        log.info("Draining {} pending cart mutations and background writes", inFlight);
+        try {
+            if (!awaitDrained(config.getDrainTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Drain deadline of {} passed with {} operations still pending", config.getDrainTimeout(), pending.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void release() {
+        if (pending.decrementAndGet() == 0) {
+            synchronized (drained) {
+                drained.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.shoppingservice.lifecycle;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+@Component
+@AllArgsConstructor
+@Slf4j
+public class TrainingRunExitListener implements ApplicationListener<ApplicationStartedEvent> {
+
+    private final LifecycleConfig config;
+
+    @Override
+    public void onApplicationEvent(final ApplicationStartedEvent event) {
+        if (!config.isTrainingRun()) {
+            return;
+        }
+        log.info("Training run finished after context refresh, exiting to write the class data sharing archive");
+        System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+}
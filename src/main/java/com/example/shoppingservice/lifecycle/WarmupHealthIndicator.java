@@ -0,0 +1,110 @@
+package com.example.shoppingservice.lifecycle;
+
+import com.example.shoppingservice.client.ProductClient;
+import com.example.shoppingservice.service.ShoppingService;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+@Component
+@Slf4j
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    enum Phase { PENDING, RUNNING, COMPLETED, FAILED }
+
+    private final ProductClient productClient;
+
+    private final ShoppingService shoppingService;
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    private final LifecycleConfig config;
+
+    private volatile Phase phase = Phase.PENDING;
+
+    private volatile Duration duration;
+
+    public WarmupHealthIndicator(final ProductClient productClient, final ShoppingService shoppingService,
+                                 final ReactiveMongoTemplate mongoTemplate, final LifecycleConfig config) {
+        this.productClient = productClient;
+        this.shoppingService = shoppingService;
+        this.mongoTemplate = mongoTemplate;
+        this.config = config;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = switch (phase) {
+            case COMPLETED, FAILED -> Health.up();
+            case PENDING, RUNNING -> Health.outOfService();
+        };
+        builder.withDetail("phase", phase);
+        if (duration != null) {
+            builder.withDetail("duration", duration.toString());
+        }
+        return builder.build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStartup() {
+        warmUp().subscribe();
+    }
+
+    public Mono<Void> warmUp() {
+        if (!config.isWarmupEnabled()) {
+            phase = Phase.COMPLETED;
+            return Mono.empty();
+        }
+        return Mono.defer(() -> {
+                    phase = Phase.RUNNING;
+                    long start = System.nanoTime();
+                    return Mono.when(openMongoConnections(), productClient.refreshCatalog())
+                            .then(productClient.sampleProductIds(config.getWarmupSampleSize()).collectList())
+                            .flatMap(this::exerciseHotPaths)
+                            .timeout(config.getWarmupTimeout())
+                            .doOnSuccess(ignored -> {
+                                duration = Duration.ofNanos(System.nanoTime() - start);
+                                phase = Phase.COMPLETED;
+                                log.info("Warm-up completed in {}", duration);
+                            });
+                })
+                .onErrorResume(err -> {
+                    // An unreachable dependency should not keep the pod out of rotation forever;
+                    // the regular error handling takes over once traffic arrives.
+                    phase = Phase.FAILED;
+                    log.warn("Warm-up failed, accepting traffic cold", err);
+                    return Mono.empty();
+                });
+    }
+
+    Phase phase() {
+        return phase;
+    }
+
+    private Mono<Void> openMongoConnections() {
+        return Flux.range(0, config.getWarmupConcurrency())
+                .flatMap(i -> mongoTemplate.executeCommand(new Document("ping", 1)), config.getWarmupConcurrency())
+                .then();
+    }
+
+    private Mono<Void> exerciseHotPaths(final List<UUID> sampleIds) {
+        return Flux.range(0, config.getWarmupIterations())
+                .flatMap(i -> Mono.when(
+                        Mono.fromCallable(() -> productClient.isDefinitelyUnknown(sampleIds)),
+                        productClient.getProducts(sampleIds).then(),
+                        shoppingService.retrieveShoppingCart(UUID.randomUUID()).onErrorResume(err -> Mono.empty())
+                ), config.getWarmupConcurrency())
+                .then();
+    }
+}
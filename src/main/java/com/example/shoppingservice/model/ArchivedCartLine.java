@@ -0,0 +1,19 @@
+package com.example.shoppingservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedCartLine {
+
+    private UUID productId;
+    private BigDecimal price;
+}
@@ -0,0 +1,28 @@
+package com.example.shoppingservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Document(collection = "archivedShoppingCarts")
+@CompoundIndex(name = "insertDateTime_id", def = "{'insertDateTime': 1, '_id': 1}")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArchivedShoppingCart {
+
+    @Id
+    private UUID id;
+    private List<ArchivedCartLine> lines;
+    private LocalDateTime insertDateTime;
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,38 @@
+package com.example.shoppingservice.model;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+public record CartCursor(LocalDateTime insertDateTime, UUID id) {
+
+    public static CartCursor after(final ShoppingCart cart) {
+        return new CartCursor(cart.getInsertDateTime(), cart.getId());
+    }
+
+    public static CartCursor after(final ArchivedShoppingCart cart) {
+        return new CartCursor(cart.getInsertDateTime(), cart.getId());
+    }
+
+    public static CartCursor decode(final String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+            return new CartCursor(LocalDateTime.parse(parts[0]), UUID.fromString(parts[1]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((insertDateTime + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
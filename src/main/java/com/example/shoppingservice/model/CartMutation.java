@@ -0,0 +1,14 @@
+package com.example.shoppingservice.model;
+
+import java.util.List;
+import java.util.UUID;
+
+public record CartMutation(UUID cartId, Operation operation, List<UUID> productIds, Long expectedVersion,
+                           String idempotencyKey) {
+
+    public CartMutation(final UUID cartId, final Operation operation, final List<UUID> productIds, final Long expectedVersion) {
+        this(cartId, operation, productIds, expectedVersion, null);
+    }
+
+    public enum Operation { CREATE, EDIT, ADD, REMOVE, DELETE }
+}
@@ -0,0 +1,14 @@
+package com.example.shoppingservice.model;
+
+import java.util.UUID;
+
+public record CartMutationResult(UUID cartId, ShoppingCart cart, String error) {
+
+    public static CartMutationResult success(final UUID cartId, final ShoppingCart cart) {
+        return new CartMutationResult(cartId, cart, null);
+    }
+
+    public static CartMutationResult failure(final UUID cartId, final String error) {
+        return new CartMutationResult(cartId, null, error);
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.shoppingservice.model;
+
+import java.util.List;
+
+public record CartPage(List<ShoppingCart> carts, String nextCursor) {
+}
@@ -0,0 +1,24 @@
+package com.example.shoppingservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(collection = "cleanupNodes")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CleanupNode {
+
+    @Id
+    private String id;
+    @Indexed
+    private Instant lastSeen;
+}
@@ -0,0 +1,28 @@
+package com.example.shoppingservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(collection = "idempotencyKeys")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    private String id;
+    private String fingerprint;
+    private boolean completed;
+    private ShoppingCart response;
+    private Instant claimExpiresAt;
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expiresAt;
+}
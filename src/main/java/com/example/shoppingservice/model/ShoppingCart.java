@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -12,6 +14,7 @@ import java.util.List;
 import java.util.UUID;
 
 @Document(collection = "shoppingCarts")
+@CompoundIndex(name = "owner_insertDateTime", def = "{'owner': 1, 'insertDateTime': -1, '_id': -1}")
 @Data
 @Builder
 @AllArgsConstructor
@@ -22,4 +25,15 @@ public class ShoppingCart {
     private UUID id;
     private List<Product> products;
     private LocalDateTime insertDateTime;
+    @Version
+    private Long version;
+    private String owner;
+
+    public ShoppingCart(final UUID id, final List<Product> products, final LocalDateTime insertDateTime) {
+        this(id, products, insertDateTime, null);
+    }
+
+    public ShoppingCart(final UUID id, final List<Product> products, final LocalDateTime insertDateTime, final Long version) {
+        this(id, products, insertDateTime, version, null);
+    }
 }
@@ -1,9 +1,14 @@
 package com.example.shoppingservice.model;
 
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
 import java.util.List;
 import java.util.UUID;
 
-public record ShoppingCartRequestBody(@NotNull List<UUID> products) {
+public record ShoppingCartRequestBody(@NotNull List<UUID> products, @Size(max = 128) String owner) {
+
+    public ShoppingCartRequestBody(final List<UUID> products) {
+        this(products, null);
+    }
 }
@@ -0,0 +1,86 @@
+package com.example.shoppingservice.profiling;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+@Component
+@Endpoint(id = "jfr")
+@AllArgsConstructor
+public class FlightRecorderEndpoint {
+
+    private final FlightRecorderService flightRecorderService;
+
+    @ReadOperation
+    public List<RecordingInfo> recordings() {
+        return flightRecorderService.list();
+    }
+
+    @WriteOperation
+    public RecordingInfo start(@Nullable final List<String> events, @Nullable final String duration) {
+        return flightRecorderService.start(events(events), duration(duration));
+    }
+
+    @WriteOperation
+    public RecordingInfo stop(@Selector final long id) {
+        return flightRecorderService.stop(id);
+    }
+
+    @ReadOperation
+    public RecordingSummary summary(@Selector final long id) {
+        return flightRecorderService.summarize(id);
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public Resource download(@Selector final long id, @Selector final String fileName) {
+        if (!FlightRecorderService.fileName(id).equals(fileName)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Recording file not found");
+        }
+        return new FileSystemResource(flightRecorderService.dump(id));
+    }
+
+    @DeleteOperation
+    public void delete(@Selector final long id) {
+        flightRecorderService.delete(id);
+    }
+
+    private static Set<ProfilingEvent> events(final List<String> events) {
+        Set<ProfilingEvent> selected = EnumSet.noneOf(ProfilingEvent.class);
+        if (events == null) {
+            return selected;
+        }
+        try {
+            events.forEach(event -> selected.add(ProfilingEvent.valueOf(event.trim().toUpperCase(Locale.ROOT))));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown profiling event, expected cpu, allocation or locks");
+        }
+        return selected;
+    }
+
+    private static Duration duration(final String duration) {
+        if (duration == null || duration.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.parse(duration);
+        } catch (DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Duration must be ISO-8601, e.g. PT30S");
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.shoppingservice.profiling;
+
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@Slf4j
+public class FlightRecorderService {
+
+    private final ProfilingConfig config;
+
+    private final Map<Long, Entry> recordings = new ConcurrentHashMap<>();
+
+    public FlightRecorderService(final ProfilingConfig config) {
+        this.config = config;
+    }
+
+    public synchronized RecordingInfo start(final Set<ProfilingEvent> events, final Duration duration) {
+        long active = recordings.values().stream()
+                .filter(FlightRecorderService::isActive)
+                .count();
+        if (active >= config.getMaxActiveRecordings()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A recording is already running");
+        }
+        Set<ProfilingEvent> selected = events == null || events.isEmpty()
+                ? EnumSet.allOf(ProfilingEvent.class)
+                : EnumSet.copyOf(events);
+        Duration capped = duration == null ? config.getDefaultDuration() : duration;
+        if (capped.compareTo(config.getMaxDuration()) > 0) {
+            capped = config.getMaxDuration();
+        }
+        Map<String, String> settings = new HashMap<>();
+        selected.forEach(event -> settings.putAll(event.settings()));
+        Recording recording = new Recording(settings);
+        recording.setName("shopping-service");
+        recording.setToDisk(true);
+        recording.setDuration(capped);
+        recording.setMaxSize(config.getMaxSizeBytes());
+        recording.start();
+        Entry entry = new Entry(recording, selected);
+        recordings.put(recording.getId(), entry);
+        log.info("Started JFR recording {} for {} with {}", recording.getId(), capped, selected);
+        evictStopped();
+        return info(entry);
+    }
+
+    public List<RecordingInfo> list() {
+        return recordings.values().stream()
+                .map(FlightRecorderService::info)
+                .sorted(Comparator.comparingLong(RecordingInfo::id))
+                .toList();
+    }
+
+    public RecordingInfo stop(final long id) {
+        Entry entry = find(id);
+        synchronized (entry) {
+            if (entry.recording().getState() == RecordingState.RUNNING) {
+                entry.recording().stop();
+                log.info("Stopped JFR recording {}", id);
+            }
+        }
+        evictStopped();
+        return info(entry);
+    }
+
+    public Path dump(final long id) {
+        Entry entry = find(id);
+        synchronized (entry) {
+            if (isActive(entry)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Recording is still running, stop it first");
+            }
+            Path file = file(id);
+            if (!Files.exists(file)) {
+                try {
+                    entry.recording().dump(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return file;
+        }
+    }
+
+    public RecordingSummary summarize(final long id) {
+        Path file = dump(id);
+        Map<String, Long> hotMethods = new HashMap<>();
+        Map<String, Long> allocationSites = new HashMap<>();
+        Map<String, Long> contendedLocks = new HashMap<>();
+        long executionSamples = 0;
+        long allocationSamples = 0;
+        try (RecordingFile recordingFile = new RecordingFile(file)) {
+            while (recordingFile.hasMoreEvents()) {
+                RecordedEvent event = recordingFile.readEvent();
+                switch (event.getEventType().getName()) {
+                    case "jdk.ExecutionSample", "jdk.NativeMethodSample" -> {
+                        executionSamples++;
+                        hotMethods.merge(topFrame(event.getStackTrace()), 1L, Long::sum);
+                    }
+                    case "jdk.ObjectAllocationSample" -> {
+                        allocationSamples++;
+                        String site = event.getClass("objectClass").getName() + " @ " + topFrame(event.getStackTrace());
+                        allocationSites.merge(site, event.getLong("weight"), Long::sum);
+                    }
+                    case "jdk.JavaMonitorEnter", "jdk.ThreadPark" ->
+                            contendedLocks.merge(topFrame(event.getStackTrace()), event.getDuration().toMillis(), Long::sum);
+                    default -> {
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new RecordingSummary(id, executionSamples, top(hotMethods), allocationSamples, top(allocationSites),
+                top(contendedLocks));
+    }
+
+    public void delete(final long id) {
+        Entry entry = recordings.remove(id);
+        if (entry == null) {
+            throw notFound();
+        }
+        entry.recording().close();
+        try {
+            Files.deleteIfExists(file(id));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static String fileName(final long id) {
+        return "shopping-service-" + id + ".jfr";
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        List.copyOf(recordings.keySet()).forEach(this::delete);
+    }
+
+    private synchronized void evictStopped() {
+        List<Long> stopped = recordings.values().stream()
+                .filter(entry -> !isActive(entry))
+                .map(entry -> entry.recording().getId())
+                .sorted(Comparator.reverseOrder())
+                .toList();
+        stopped.stream()
+                .skip(config.getMaxRetainedRecordings())
+                .forEach(id -> {
+                    log.info("Evicting JFR recording {}, more than {} stopped recordings retained", id,
+                            config.getMaxRetainedRecordings());
+                    delete(id);
+                });
+    }
+
+    private Path file(final long id) {
+        return Path.of(config.getDirectory(), fileName(id));
+    }
+
+    private static boolean isActive(final Entry entry) {
+        RecordingState state = entry.recording().getState();
+        return state == RecordingState.NEW || state == RecordingState.DELAYED || state == RecordingState.RUNNING;
+    }
+
+    private Entry find(final long id) {
+        Entry entry = recordings.get(id);
+        if (entry == null) {
+            throw notFound();
+        }
+        return entry;
+    }
+
+    private List<RecordingSummary.Entry> top(final Map<String, Long> counts) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(config.getSummaryTopN())
+                .map(entry -> new RecordingSummary.Entry(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    private static String topFrame(final RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "<unknown>";
+        }
+        RecordedFrame frame = stackTrace.getFrames().get(0);
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    private static RecordingInfo info(final Entry entry) {
+        Recording recording = entry.recording();
+        return new RecordingInfo(recording.getId(), recording.getState().name(), entry.events(),
+                recording.getStartTime(), recording.getDuration(), recording.getSize(), fileName(recording.getId()));
+    }
+
+    private static ResponseStatusException notFound() {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Recording not found");
+    }
+
+    private record Entry(Recording recording, Set<ProfilingEvent> events) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.shoppingservice.profiling;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "shopping.profiling")
+@Getter
+@Setter
+public class ProfilingConfig {
+
+    private String directory = System.getProperty("java.io.tmpdir");
+    private Duration defaultDuration = Duration.ofSeconds(30);
+    private Duration maxDuration = Duration.ofMinutes(5);
+    private long maxSizeBytes = 100L * 1024 * 1024;
+    private int maxActiveRecordings = 1;
+    private int maxRetainedRecordings = 3;
+    private int summaryTopN = 20;
+}
@@ -0,0 +1,33 @@
+package com.example.shoppingservice.profiling;
+
+import java.util.Map;
+
+public enum ProfilingEvent {
+
+    CPU(Map.of(
+            "jdk.ExecutionSample#enabled", "true",
+            "jdk.ExecutionSample#period", "10 ms",
+            "jdk.NativeMethodSample#enabled", "true",
+            "jdk.NativeMethodSample#period", "20 ms")),
+    ALLOCATION(Map.of(
+            "jdk.ObjectAllocationSample#enabled", "true",
+            "jdk.ObjectAllocationSample#throttle", "300/s",
+            "jdk.ObjectAllocationSample#stackTrace", "true")),
+    LOCKS(Map.of(
+            "jdk.JavaMonitorEnter#enabled", "true",
+            "jdk.JavaMonitorEnter#threshold", "10 ms",
+            "jdk.JavaMonitorEnter#stackTrace", "true",
+            "jdk.ThreadPark#enabled", "true",
+            "jdk.ThreadPark#threshold", "10 ms",
+            "jdk.ThreadPark#stackTrace", "true"));
+
+    private final Map<String, String> settings;
+
+    ProfilingEvent(final Map<String, String> settings) {
+        this.settings = settings;
+    }
+
+    public Map<String, String> settings() {
+        return settings;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.shoppingservice.profiling;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+public record RecordingInfo(long id, String state, Set<ProfilingEvent> events, Instant startedAt, Duration duration,
+                            long sizeBytes, String fileName) {
+}
@@ -0,0 +1,10 @@
+package com.example.shoppingservice.profiling;
+
+import java.util.List;
+
+public record RecordingSummary(long id, long executionSamples, List<Entry> hotMethods, long allocationSamples,
+                               List<Entry> allocationSites, List<Entry> contendedLocks) {
+
+    public record Entry(String frame, long value) {
+    }
+}
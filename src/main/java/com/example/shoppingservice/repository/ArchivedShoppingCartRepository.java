@@ -0,0 +1,10 @@
+package com.example.shoppingservice.repository;
+
+import com.example.shoppingservice.model.ArchivedShoppingCart;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+import java.util.UUID;
+
+public interface ArchivedShoppingCartRepository extends ReactiveMongoRepository<ArchivedShoppingCart, UUID>,
+        ArchivedShoppingCartRepositoryCustom {
+}
@@ -0,0 +1,11 @@
+package com.example.shoppingservice.repository;
+
+import com.example.shoppingservice.model.ArchivedShoppingCart;
+import com.example.shoppingservice.model.CartCursor;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+public interface ArchivedShoppingCartRepositoryCustom {
+    Flux<ArchivedShoppingCart> findArchivedCarts(LocalDateTime from, LocalDateTime to, CartCursor after, int limit);
+}
@@ -0,0 +1,38 @@
+package com.example.shoppingservice.repository;
+
+import com.example.shoppingservice.model.ArchivedShoppingCart;
+import com.example.shoppingservice.model.CartCursor;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@AllArgsConstructor
+public class ArchivedShoppingCartRepositoryCustomImpl implements ArchivedShoppingCartRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Flux<ArchivedShoppingCart> findArchivedCarts(final LocalDateTime from, final LocalDateTime to,
+                                                        final CartCursor after, final int limit) {
+        return mongoTemplate.find(rangeQuery(from, to, after, limit), ArchivedShoppingCart.class);
+    }
+
+    static Query rangeQuery(final LocalDateTime from, final LocalDateTime to, final CartCursor after, final int limit) {
+        Criteria criteria = where("insertDateTime").gte(from).lt(to);
+        if (after != null) {
+            criteria = new Criteria().andOperator(criteria, where("insertDateTime").gte(after.insertDateTime())
+                    .norOperator(where("insertDateTime").is(after.insertDateTime()).and("_id").lte(after.id())));
+        }
+        return query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "insertDateTime", "_id"))
+                .limit(limit);
+    }
+}
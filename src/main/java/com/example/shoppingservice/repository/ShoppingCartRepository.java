@@ -2,16 +2,24 @@ package com.example.shoppingservice.repository;
 
 import com.example.shoppingservice.model.ShoppingCart;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.UUID;
 
-public interface ShoppingCartRepository extends ReactiveMongoRepository<ShoppingCart, String> {
-    Mono<ShoppingCart> findShoppingCartById(UUID id);
+public interface ShoppingCartRepository extends ReactiveMongoRepository<ShoppingCart, String>, ShoppingCartRepositoryCustom {
+    Flux<ShoppingCart> findByInsertDateTimeBefore(LocalDateTime time);
+
+    Flux<ShoppingCart> findByIdInAndInsertDateTimeBefore(Collection<UUID> ids, LocalDateTime time);
 
     Mono<Void> deleteShoppingCartById(UUID id);
 
-    Mono<Void> deleteByInsertDateTimeBefore(LocalDateTime time);
+    Mono<Long> deleteByIdAndVersion(UUID id, Long version);
+
+    Mono<Long> deleteByInsertDateTimeBefore(LocalDateTime time);
+
+    Mono<Long> deleteByIdInAndInsertDateTimeBefore(Collection<UUID> ids, LocalDateTime time);
 
 }
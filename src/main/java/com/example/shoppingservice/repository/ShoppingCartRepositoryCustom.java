@@ -0,0 +1,25 @@
+package com.example.shoppingservice.repository;
+
+import com.example.shoppingservice.model.CartCursor;
+import com.example.shoppingservice.model.Product;
+import com.example.shoppingservice.model.ShoppingCart;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface ShoppingCartRepositoryCustom {
+    Mono<ShoppingCart> findShoppingCartById(UUID id);
+
+    Flux<ShoppingCart> findShoppingCartsByOwner(String owner, CartCursor after, int limit);
+
+    Flux<UUID> findIdsByInsertDateTimeBefore(LocalDateTime time);
+
+    Mono<ShoppingCart> appendMissingProducts(UUID cartId, List<Product> products);
+
+    Mono<Boolean> initialiseVersion(UUID cartId);
+
+    Mono<Long> deleteUnchanged(List<ShoppingCart> carts);
+}
@@ -0,0 +1,114 @@
+package com.example.shoppingservice.repository;
+
+import com.example.shoppingservice.deadline.Deadline;
+import com.example.shoppingservice.deadline.DeadlineExceededException;
+import com.example.shoppingservice.model.CartCursor;
+import com.example.shoppingservice.model.Product;
+import com.example.shoppingservice.model.ShoppingCart;
+import com.mongodb.MongoExecutionTimeoutException;
+import com.mongodb.client.result.DeleteResult;
+import lombok.AllArgsConstructor;
+import org.bson.Document;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@AllArgsConstructor
+public class ShoppingCartRepositoryCustomImpl implements ShoppingCartRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Mono<ShoppingCart> findShoppingCartById(final UUID id) {
+        return Deadline.bound(Mono.deferContextual(context -> {
+                    Query query = query(where("_id").is(id));
+                    Deadline.from(context).ifPresent(deadline -> query.maxTime(deadline.remaining()));
+                    return mongoTemplate.findOne(query, ShoppingCart.class);
+                }), "mongo")
+                .onErrorMap(ShoppingCartRepositoryCustomImpl::isServerTimeout, err -> new DeadlineExceededException("mongo"));
+    }
+
+    @Override
+    public Flux<ShoppingCart> findShoppingCartsByOwner(final String owner, final CartCursor after, final int limit) {
+        return Deadline.bound(Flux.deferContextual(context -> {
+                    Query query = ownerQuery(owner, after, limit);
+                    Deadline.from(context).ifPresent(deadline -> query.maxTime(deadline.remaining()));
+                    return mongoTemplate.find(query, ShoppingCart.class);
+                }).collectList(), "mongo")
+                .onErrorMap(ShoppingCartRepositoryCustomImpl::isServerTimeout, err -> new DeadlineExceededException("mongo"))
+                .flatMapIterable(carts -> carts);
+    }
+
+    @Override
+    public Flux<UUID> findIdsByInsertDateTimeBefore(final LocalDateTime time) {
+        Query query = query(where("insertDateTime").lt(time));
+        query.fields().include("_id");
+        return mongoTemplate.find(query, ShoppingCart.class)
+                .map(ShoppingCart::getId);
+    }
+
+    @Override
+    public Mono<ShoppingCart> appendMissingProducts(final UUID cartId, final List<Product> products) {
+        return Mono.defer(() -> {
+            Document candidates = new Document("$literal", mongoTemplate.getConverter().convertToMongoType(products));
+            Document presentIds = new Document("$ifNull", List.of("$products._id", List.of()));
+            Document missing = new Document("$filter", new Document("input", candidates)
+                    .append("as", "candidate")
+                    .append("cond", new Document("$not", List.of(new Document("$in", List.of("$$candidate._id", presentIds))))));
+            Document set = new Document("products", new Document("$concatArrays",
+                    List.of(new Document("$ifNull", List.of("$products", List.of())), missing)))
+                    .append("version", new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L)));
+            AggregationUpdate update = AggregationUpdate.from(List.of(context -> new Document("$set", set)));
+            return mongoTemplate.findAndModify(query(where("_id").is(cartId)), update, ShoppingCart.class);
+        });
+    }
+
+    @Override
+    public Mono<Boolean> initialiseVersion(final UUID cartId) {
+        return mongoTemplate.updateFirst(query(where("_id").is(cartId).and("version").exists(false)),
+                        new Update().set("version", 0L), ShoppingCart.class)
+                .map(result -> result.getModifiedCount() > 0);
+    }
+
+    @Override
+    public Mono<Long> deleteUnchanged(final List<ShoppingCart> carts) {
+        if (carts.isEmpty()) {
+            return Mono.just(0L);
+        }
+        Criteria[] unchanged = carts.stream()
+                .map(cart -> where("_id").is(cart.getId()).and("version").is(cart.getVersion()))
+                .toArray(Criteria[]::new);
+        return mongoTemplate.remove(query(new Criteria().orOperator(unchanged)), ShoppingCart.class)
+                .map(DeleteResult::getDeletedCount);
+    }
+
+    static Query ownerQuery(final String owner, final CartCursor after, final int limit) {
+        Criteria criteria = where("owner").is(owner);
+        if (after != null) {
+            criteria = criteria.and("insertDateTime").lte(after.insertDateTime())
+                    .norOperator(where("insertDateTime").is(after.insertDateTime()).and("_id").gte(after.id()));
+        }
+        return query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "insertDateTime", "_id"))
+                .limit(limit);
+    }
+
+    private static boolean isServerTimeout(final Throwable error) {
+        return error instanceof QueryTimeoutException
+                || NestedExceptionUtils.getMostSpecificCause(error) instanceof MongoExecutionTimeoutException;
+    }
+}
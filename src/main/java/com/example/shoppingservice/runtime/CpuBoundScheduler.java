@@ -0,0 +1,38 @@
+package com.example.shoppingservice.runtime;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+
+@Component
+public class CpuBoundScheduler {
+
+    private final boolean offloading;
+
+    private final Scheduler scheduler;
+
+    public CpuBoundScheduler(final RuntimeConfig config) {
+        this.offloading = config.isOffloadCpuWork();
+        this.scheduler = offloading
+                ? Schedulers.newParallel("cart-cpu", config.getCpuParallelism())
+                : Schedulers.immediate();
+    }
+
+    public <T> Mono<T> run(final Callable<T> work) {
+        Mono<T> result = Mono.fromCallable(work);
+        return offloading ? result.subscribeOn(scheduler) : result;
+    }
+
+    public boolean isOffloading() {
+        return offloading;
+    }
+
+    @PreDestroy
+    public void dispose() {
+        scheduler.dispose();
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.shoppingservice.runtime;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.client.reactive.ReactorResourceFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.HttpResources;
+import reactor.netty.resources.LoopResources;
+import reactor.netty.tcp.TcpResources;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+@Component
+@Slf4j
+public class EventLoopLagMonitor {
+
+    private final RuntimeConfig config;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Counter blocked;
+
+    private final List<Probe> probes = new ArrayList<>();
+
+    private Scheduler scheduler;
+
+    private Disposable task;
+
+    private final ObjectProvider<ReactorResourceFactory> resourceFactory;
+
+    public EventLoopLagMonitor(final RuntimeConfig config, final MeterRegistry meterRegistry,
+                               final ObjectProvider<ReactorResourceFactory> resourceFactory) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.resourceFactory = resourceFactory;
+        this.blocked = meterRegistry.counter("shopping.eventloop.blocked");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnStartup() {
+        if (config.isLagMonitorEnabled()) {
+            start(serverLoops().toArray(EventLoopGroup[]::new));
+        }
+    }
+
+    public synchronized void start(final EventLoopGroup... eventLoopGroups) {
+        if (task != null) {
+            return;
+        }
+        Set<EventExecutor> executors = Collections.newSetFromMap(new IdentityHashMap<>());
+        int index = 0;
+        for (EventLoopGroup eventLoops : eventLoopGroups) {
+            for (EventExecutor executor : eventLoops) {
+                if (executors.add(executor)) {
+                    probes.add(new Probe(executor, String.valueOf(index++)));
+                }
+            }
+        }
+        scheduler = Schedulers.newSingle("event-loop-monitor", true);
+        long interval = config.getLagProbeInterval().toNanos();
+        task = scheduler.schedulePeriodically(this::tick, interval, interval, TimeUnit.NANOSECONDS);
+        log.info("Monitoring {} event loops for lag above {}", probes.size(), config.getBlockedThreshold());
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (task != null) {
+            task.dispose();
+            scheduler.dispose();
+            task = null;
+        }
+    }
+
+    private List<EventLoopGroup> serverLoops() {
+        ReactorResourceFactory factory = resourceFactory.getIfAvailable();
+        if (factory != null) {
+            return List.of(factory.getLoopResources().onServer(LoopResources.DEFAULT_NATIVE));
+        }
+        return List.of(HttpResources.get().onServer(LoopResources.DEFAULT_NATIVE),
+                TcpResources.get().onServer(LoopResources.DEFAULT_NATIVE));
+    }
+
+    void tick() {
+        long now = System.nanoTime();
+        for (Probe probe : probes) {
+            probe.check(now);
+        }
+    }
+
+    private final class Probe {
+
+        private final EventExecutor executor;
+
+        private final Timer lag;
+
+        private final AtomicLong submittedAt = new AtomicLong();
+
+        private volatile Thread thread;
+
+        private volatile boolean reported;
+
+        private Probe(final EventExecutor executor, final String loop) {
+            this.executor = executor;
+            this.lag = Timer.builder("shopping.eventloop.lag")
+                    .tag("loop", loop)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+            if (executor instanceof SingleThreadEventExecutor singleThread) {
+                Gauge.builder("shopping.eventloop.pending.tasks", singleThread, SingleThreadEventExecutor::pendingTasks)
+                        .tag("loop", loop)
+                        .register(meterRegistry);
+            }
+        }
+
+        private void check(final long now) {
+            long submitted = submittedAt.get();
+            if (submitted == 0) {
+                submit(now);
+                return;
+            }
+            long waited = now - submitted;
+            if (!reported && waited > config.getBlockedThreshold().toNanos()) {
+                reported = true;
+                blocked.increment();
+                log.warn("Event loop {} has not run a task for {}:\n{}", thread == null ? "?" : thread.getName(),
+                        Duration.ofNanos(waited), stackTrace(thread));
+            }
+        }
+
+        private void submit(final long now) {
+            if (executor.isShuttingDown() || !submittedAt.compareAndSet(0, now)) {
+                return;
+            }
+            executor.execute(() -> {
+                thread = Thread.currentThread();
+                lag.record(System.nanoTime() - now, TimeUnit.NANOSECONDS);
+                reported = false;
+                submittedAt.set(0);
+            });
+        }
+
+        private static String stackTrace(final Thread thread) {
+            if (thread == null) {
+                return "";
+            }
+            return Arrays.stream(thread.getStackTrace())
+                    .map(frame -> "\tat " + frame)
+                    .collect(Collectors.joining("\n"));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.shoppingservice.runtime;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "shopping.runtime")
+@Getter
+@Setter
+public class RuntimeConfig {
+
+    private boolean lagMonitorEnabled = true;
+    private Duration lagProbeInterval = Duration.ofMillis(500);
+    private Duration blockedThreshold = Duration.ofMillis(200);
+    private boolean offloadCpuWork = false;
+    private int cpuParallelism = Runtime.getRuntime().availableProcessors();
+}
@@ -0,0 +1,97 @@
+package com.example.shoppingservice.service;
+
+import com.example.shoppingservice.events.CartEvent;
+import com.example.shoppingservice.events.CartEventHub;
+import com.example.shoppingservice.model.ArchivedCartLine;
+import com.example.shoppingservice.model.ArchivedCartPage;
+import com.example.shoppingservice.model.ArchivedShoppingCart;
+import com.example.shoppingservice.model.CartCursor;
+import com.example.shoppingservice.model.ShoppingCart;
+import com.example.shoppingservice.repository.ArchivedShoppingCartRepository;
+import com.example.shoppingservice.repository.ShoppingCartRepository;
+import lombok.AllArgsConstructor;
+import org.apache.commons.collections4.CollectionUtils;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Service
+@AllArgsConstructor
+public class CartArchiveService {
+    private static final int MAX_CHANGED_CART_RETRIES = 3;
+
+    private final ShoppingCartRepository shoppingCartRepository;
+    private final ArchivedShoppingCartRepository archivedShoppingCartRepository;
+    private final CartCleanupConfig cleanupConfig;
+    private final CartEventHub cartEventHub;
+
+    public Mono<Long> archiveOldCarts() {
+        return archiveOldCarts(CartPartition.ALL);
+    }
+
+    public Mono<Long> archiveOldCarts(final CartPartition partition) {
+        LocalDateTime threshold = LocalDateTime.now(ZoneId.systemDefault()).minus(cleanupConfig.getRetention());
+        return shoppingCartRepository.findByInsertDateTimeBefore(threshold)
+                .filter(cart -> partition.contains(cart.getId()))
+                .buffer(cleanupConfig.getBatchSize())
+                .concatMap(batch -> archiveBatch(batch, threshold, MAX_CHANGED_CART_RETRIES))
+                .reduce(0L, Long::sum);
+    }
+
+    public Mono<ArchivedCartPage> findArchivedCarts(final LocalDateTime from, final LocalDateTime to, final String cursor,
+                                                    final int limit) {
+        return Mono.defer(() -> archivedShoppingCartRepository.findArchivedCarts(from, to, CartCursor.decode(cursor), limit + 1)
+                .collectList()
+                .map(carts -> carts.size() > limit
+                        ? new ArchivedCartPage(carts.subList(0, limit), CartCursor.after(carts.get(limit - 1)).encode())
+                        : new ArchivedCartPage(carts, null)));
+    }
+
+    private Mono<Long> archiveBatch(final List<ShoppingCart> batch, final LocalDateTime threshold, final int retriesLeft) {
+        LocalDateTime archivedAt = LocalDateTime.now(ZoneId.systemDefault());
+        List<ArchivedShoppingCart> archivedCarts = batch.stream()
+                .map(cart -> toArchivedCart(cart, archivedAt))
+                .toList();
+        List<UUID> cartIds = batch.stream()
+                .map(ShoppingCart::getId)
+                .toList();
+        return archivedShoppingCartRepository.saveAll(archivedCarts)
+                .then(Mono.defer(() -> shoppingCartRepository.deleteUnchanged(batch)))
+                .flatMap(deleted -> {
+                    if (deleted == batch.size()) {
+                        publishDeleted(cartIds, List.of());
+                        return Mono.just(deleted);
+                    }
+                    return shoppingCartRepository.findByIdInAndInsertDateTimeBefore(cartIds, threshold)
+                            .collectList()
+                            .flatMap(changed -> {
+                                publishDeleted(cartIds, changed);
+                                return changed.isEmpty() || retriesLeft == 0
+                                        ? Mono.just(deleted)
+                                        : archiveBatch(changed, threshold, retriesLeft - 1).map(archived -> deleted + archived);
+                            });
+                });
+    }
+
+    private void publishDeleted(final List<UUID> cartIds, final List<ShoppingCart> remaining) {
+        Set<UUID> remainingIds = remaining.stream()
+                .map(ShoppingCart::getId)
+                .collect(Collectors.toSet());
+        cartIds.stream()
+                .filter(cartId -> !remainingIds.contains(cartId))
+                .forEach(cartId -> cartEventHub.publish(CartEvent.deleted(cartId)));
+    }
+
+    private ArchivedShoppingCart toArchivedCart(final ShoppingCart shoppingCart, final LocalDateTime archivedAt) {
+        List<ArchivedCartLine> lines = CollectionUtils.emptyIfNull(shoppingCart.getProducts()).stream()
+                .map(product -> new ArchivedCartLine(product.getId(), product.getPrice()))
+                .toList();
+        return new ArchivedShoppingCart(shoppingCart.getId(), lines, shoppingCart.getInsertDateTime(), archivedAt);
+    }
+}
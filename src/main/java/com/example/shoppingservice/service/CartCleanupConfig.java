@@ -0,0 +1,23 @@
+package com.example.shoppingservice.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "shopping.cleanup")
+@Getter
+@Setter
+public class CartCleanupConfig {
+
+    private boolean archive = true;
+    private Duration retention = Duration.ofMinutes(1);
+    private int batchSize = 500;
+    private String nodeId;
+    private Duration leaseTtl = Duration.ofMinutes(2);
+    private boolean partitioned = false;
+    private Duration nodeTimeout = Duration.ofMinutes(10);
+}
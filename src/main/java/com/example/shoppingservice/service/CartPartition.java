@@ -0,0 +1,16 @@
+package com.example.shoppingservice.service;
+
+import java.util.UUID;
+
+public record CartPartition(int index, int count) {
+
+    public static final CartPartition ALL = new CartPartition(0, 1);
+
+    public boolean isWhole() {
+        return count == 1;
+    }
+
+    public boolean contains(final UUID cartId) {
+        return isWhole() || Math.floorMod(cartId.hashCode(), count) == index;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.shoppingservice.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "shopping.repricing")
+@Getter
+@Setter
+public class CartRepricingConfig {
+
+    private boolean enabled = false;
+    private int cursorBatchSize = 500;
+    private int bulkSize = 200;
+    private Duration throttle = Duration.ofMillis(100);
+}
@@ -0,0 +1,146 @@
+package com.example.shoppingservice.service;
+
+import com.example.shoppingservice.client.ProductClient;
+import com.example.shoppingservice.events.CartEvent;
+import com.example.shoppingservice.events.CartEventHub;
+import com.example.shoppingservice.model.Product;
+import com.example.shoppingservice.model.ShoppingCart;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.CollectionUtils;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@Component
+@Slf4j
+public class CartRepricingJob {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ProductClient productClient;
+    private final CartRepricingConfig config;
+    private final CartEventHub cartEventHub;
+    private final Counter scannedCarts;
+    private final Counter repricedLines;
+    private final Timer runTimer;
+    private final AtomicLong currentRunScanned = new AtomicLong();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public CartRepricingJob(final ReactiveMongoTemplate mongoTemplate, final ProductClient productClient,
+                            final CartRepricingConfig config, final CartEventHub cartEventHub,
+                            final MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.productClient = productClient;
+        this.config = config;
+        this.cartEventHub = cartEventHub;
+        this.scannedCarts = meterRegistry.counter("shopping.cart.repricing.carts.scanned");
+        this.repricedLines = meterRegistry.counter("shopping.cart.repricing.lines.repriced");
+        this.runTimer = meterRegistry.timer("shopping.cart.repricing.duration");
+        meterRegistry.gauge("shopping.cart.repricing.progress", currentRunScanned);
+    }
+
+    public Mono<RepricingResult> repriceCarts() {
+        return Mono.defer(() -> {
+            if (!running.compareAndSet(false, true)) {
+                log.info("Cart repricing already in progress, skipping");
+                return Mono.empty();
+            }
+            currentRunScanned.set(0);
+            long start = System.nanoTime();
+            return productClient.getAllProducts()
+                    .filter(product -> product.getId() != null && product.getPrice() != null)
+                    .collectMap(Product::getId, Product::getPrice)
+                    .flatMap(this::repriceAgainst)
+                    .doOnNext(result -> runTimer.record(Duration.ofNanos(System.nanoTime() - start)))
+                    .doFinally(signal -> running.set(false));
+        });
+    }
+
+    private Mono<RepricingResult> repriceAgainst(final Map<UUID, BigDecimal> catalogPrices) {
+        AtomicLong scanned = new AtomicLong();
+        Query query = new Query().cursorBatchSize(config.getCursorBatchSize());
+        query.fields().include("products.id", "products.price");
+
+        return mongoTemplate.find(query, ShoppingCart.class)
+                .doOnNext(cart -> {
+                    scanned.incrementAndGet();
+                    currentRunScanned.incrementAndGet();
+                    scannedCarts.increment();
+                })
+                .concatMapIterable(cart -> priceCorrections(cart, catalogPrices))
+                .buffer(config.getBulkSize())
+                .concatMap(this::applyCorrections)
+                .reduce(0L, Long::sum)
+                .map(repriced -> new RepricingResult(scanned.get(), repriced));
+    }
+
+    private Mono<Long> applyCorrections(final List<PriceCorrection> corrections) {
+        ReactiveBulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ShoppingCart.class);
+        corrections.forEach(correction -> {
+            Query query = new Query(where("id").is(correction.cartId()).and("products.id").is(correction.productId()));
+            UpdateDefinition update = new Update()
+                    .set("products.$[line].price", correction.price())
+                    .filterArray(where("line._id").is(correction.productId()))
+                    .inc("version", 1);
+            bulkOperations.updateOne(query, update);
+        });
+        return bulkOperations.execute()
+                .map(result -> (long) result.getModifiedCount())
+                .doOnNext(repricedLines::increment)
+                .flatMap(repriced -> publishRepriced(corrections).thenReturn(repriced))
+                .delayElement(config.getThrottle());
+    }
+
+    private Mono<Void> publishRepriced(final List<PriceCorrection> corrections) {
+        return Flux.fromIterable(corrections)
+                .map(PriceCorrection::cartId)
+                .distinct()
+                .filter(cartEventHub::isWatched)
+                .concatMap(cartId -> mongoTemplate.findById(cartId, ShoppingCart.class))
+                .doOnNext(cart -> cartEventHub.publish(CartEvent.updated(cart)))
+                .then();
+    }
+
+    static List<PriceCorrection> priceCorrections(final ShoppingCart cart, final Map<UUID, BigDecimal> catalogPrices) {
+        if (CollectionUtils.isEmpty(cart.getProducts())) {
+            return List.of();
+        }
+        List<PriceCorrection> corrections = new ArrayList<>();
+        Set<UUID> seen = new HashSet<>();
+        for (Product product : cart.getProducts()) {
+            BigDecimal currentPrice = catalogPrices.get(product.getId());
+            if (currentPrice != null && seen.add(product.getId())
+                    && (product.getPrice() == null || product.getPrice().compareTo(currentPrice) != 0)) {
+                corrections.add(new PriceCorrection(cart.getId(), product.getId(), currentPrice));
+            }
+        }
+        return corrections;
+    }
+
+    record PriceCorrection(UUID cartId, UUID productId, BigDecimal price) {
+    }
+
+    public record RepricingResult(long cartsScanned, long linesRepriced) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.shoppingservice.service;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@AllArgsConstructor
+@Slf4j
+public class CartRepricingScheduler {
+
+    private final CartRepricingJob cartRepricingJob;
+
+    private final CartRepricingConfig config;
+
+    @Scheduled(cron = "${shopping.repricing.cron:0 0/15 * * * *}")
+    public void repriceCarts() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        cartRepricingJob.repriceCarts()
+                .doOnNext(result -> log.info("Repriced {} cart lines after scanning {} carts", result.linesRepriced(), result.cartsScanned()))
+                .doOnError(err -> log.error("Error occurred during cart repricing", err))
+                .subscribe();
+    }
+}
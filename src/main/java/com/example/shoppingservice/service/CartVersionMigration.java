@@ -0,0 +1,44 @@
+package com.example.shoppingservice.service;
+
+import com.example.shoppingservice.model.ShoppingCart;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@Component
+@Slf4j
+@AllArgsConstructor
+public class CartVersionMigration {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyCarts() {
+        migrate().subscribe(null, err -> log.warn("Legacy shopping cart version migration failed", err));
+    }
+
+    Mono<Long> migrate() {
+        return Mono.defer(() -> mongoTemplate.updateMulti(query(where("version").exists(false)),
+                        new Update().set("version", 0L), ShoppingCart.class))
+                .map(result -> result.getModifiedCount())
+                .doOnNext(modified -> {
+                    if (modified > 0) {
+                        log.info("Initialised version on {} legacy shopping carts", modified);
+                    }
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(5))
+                        .maxBackoff(Duration.ofMinutes(5))
+                        .doBeforeRetry(signal -> log.warn("Retrying legacy shopping cart version migration", signal.failure())));
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.shoppingservice.service;
+
+import com.example.shoppingservice.model.CleanupLease;
+import com.example.shoppingservice.model.CleanupNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@Component
+@Slf4j
+public class CleanupLeaseManager {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final CartCleanupConfig config;
+    @Getter
+    private final String nodeId;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicInteger> leaseHeld = new ConcurrentHashMap<>();
+
+    public CleanupLeaseManager(final ReactiveMongoTemplate mongoTemplate, final CartCleanupConfig config,
+                               final MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.nodeId = config.getNodeId() != null ? config.getNodeId() : resolveNodeId();
+    }
+
+    public <T> Mono<T> withLease(final String leaseName, final Mono<T> work) {
+        return Mono.usingWhen(tryAcquire(leaseName).filter(Boolean::booleanValue).map(acquired -> renew(leaseName)),
+                renewal -> work,
+                renewal -> release(leaseName, renewal));
+    }
+
+    public Mono<Boolean> tryAcquire(final String leaseName) {
+        return Mono.defer(() -> {
+            Instant now = Instant.now();
+            Query query = new Query(where("id").is(leaseName)
+                    .orOperator(where("expiresAt").lte(now), where("holder").is(nodeId)));
+            Update update = new Update()
+                    .set("holder", nodeId)
+                    .set("acquiredAt", now)
+                    .set("expiresAt", now.plus(config.getLeaseTtl()));
+            return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().upsert(true).returnNew(true), CleanupLease.class)
+                    .map(lease -> nodeId.equals(lease.getHolder()))
+                    .onErrorReturn(DuplicateKeyException.class, false)
+                    .defaultIfEmpty(false)
+                    .doOnNext(acquired -> {
+                        held(leaseName).set(acquired ? 1 : 0);
+                        log.debug("Lease {} {} by node {}", leaseName, acquired ? "acquired" : "not acquired", nodeId);
+                    });
+        });
+    }
+
+    public Mono<CartPartition> heartbeatAndResolvePartition() {
+        return Mono.defer(() -> {
+            Instant now = Instant.now();
+            Criteria liveNodes = where("lastSeen").gte(now.minus(config.getNodeTimeout()));
+            return mongoTemplate.upsert(new Query(where("id").is(nodeId)), new Update().set("lastSeen", now), CleanupNode.class)
+                    .thenMany(mongoTemplate.find(new Query(liveNodes).with(Sort.by("id")), CleanupNode.class))
+                    .map(CleanupNode::getId)
+                    .collectList()
+                    .map(this::partitionOf);
+        });
+    }
+
+    private Disposable renew(final String leaseName) {
+        return Flux.interval(config.getLeaseTtl().dividedBy(3))
+                .concatMap(tick -> tryAcquire(leaseName)
+                        .onErrorResume(err -> {
+                            log.warn("Failed to renew lease {}", leaseName, err);
+                            return Mono.empty();
+                        }))
+                .subscribe(renewed -> {
+                    if (!renewed) {
+                        log.warn("Lease {} was taken over from node {} while it was held", leaseName, nodeId);
+                    }
+                });
+    }
+
+    private Mono<Void> release(final String leaseName, final Disposable renewal) {
+        return Mono.defer(() -> {
+            renewal.dispose();
+            return mongoTemplate.updateFirst(new Query(where("id").is(leaseName).and("holder").is(nodeId)),
+                            new Update().set("expiresAt", Instant.now()), CleanupLease.class)
+                    .doOnSuccess(result -> held(leaseName).set(0))
+                    .onErrorResume(err -> {
+                        log.warn("Failed to release lease {}, it expires after {}", leaseName, config.getLeaseTtl(), err);
+                        return Mono.empty();
+                    })
+                    .then();
+        });
+    }
+
+    private AtomicInteger held(final String leaseName) {
+        return leaseHeld.computeIfAbsent(leaseName, name -> meterRegistry.gauge("shopping.cart.cleanup.lease.held",
+                Tags.of("node", nodeId, "lease", name), new AtomicInteger()));
+    }
+
+    private CartPartition partitionOf(final List<String> liveNodeIds) {
+        int index = liveNodeIds.indexOf(nodeId);
+        if (index < 0) {
+            return CartPartition.ALL;
+        }
+        return new CartPartition(index, liveNodeIds.size());
+    }
+
+    private static String resolveNodeId() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return UUID.randomUUID().toString();
+        }
+    }
+}
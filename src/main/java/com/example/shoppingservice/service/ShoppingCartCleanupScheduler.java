@@ -1,24 +1,81 @@
 package com.example.shoppingservice.service;
 
-import lombok.AllArgsConstructor;
+import com.example.shoppingservice.tracing.ReactiveObservations;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
 
 @EnableScheduling
 @Component
-@AllArgsConstructor
 @Slf4j
 public class ShoppingCartCleanupScheduler {
 
+    private static final String CLEANUP_LEASE = "cart-cleanup";
+
     private final ShoppingService shoppingService;
+    private final CartArchiveService cartArchiveService;
+    private final CleanupLeaseManager leaseManager;
+    private final CartCleanupConfig cleanupConfig;
+    private final Timer runTimer;
+    private final Counter removedCarts;
+    private final ObservationRegistry observationRegistry;
+
+    public ShoppingCartCleanupScheduler(final ShoppingService shoppingService, final CartArchiveService cartArchiveService,
+                                        final CleanupLeaseManager leaseManager, final CartCleanupConfig cleanupConfig,
+                                        final MeterRegistry meterRegistry, final ObservationRegistry observationRegistry) {
+        this.shoppingService = shoppingService;
+        this.cartArchiveService = cartArchiveService;
+        this.leaseManager = leaseManager;
+        this.cleanupConfig = cleanupConfig;
+        this.runTimer = meterRegistry.timer("shopping.cart.cleanup.duration");
+        this.removedCarts = meterRegistry.counter("shopping.cart.cleanup.removed");
+        this.observationRegistry = observationRegistry;
+    }
 
     @Scheduled(cron = "0 0/3 * * * *")
     public void cleanUpOldCarts() {
-        shoppingService.deleteOldCarts()
-                .doOnSuccess(s -> log.info("Successfully removed old carts"))
+        Mono<Long> run = resolvePartition()
+                .flatMap(partition -> leaseManager.withLease(leaseName(partition), Mono.defer(() -> timedCleanUp(partition))));
+        ReactiveObservations.observe(run, observationRegistry, "shopping.cart.cleanup.run",
+                        "mode", cleanupConfig.isArchive() ? "archive" : "delete")
+                .doOnSuccess(removed -> {
+                    if (removed == null) {
+                        log.info("Cleanup lease held by another node, skipping old carts removal");
+                    } else {
+                        log.info("Successfully removed {} old carts", removed);
+                    }
+                })
                 .doOnError(err -> log.error("Error occurred during old carts removal"))
                 .subscribe();
     }
+
+    private Mono<CartPartition> resolvePartition() {
+        return cleanupConfig.isPartitioned()
+                ? leaseManager.heartbeatAndResolvePartition()
+                : Mono.just(CartPartition.ALL);
+    }
+
+    private Mono<Long> timedCleanUp(final CartPartition partition) {
+        long start = System.nanoTime();
+        Mono<Long> cleanup = cleanupConfig.isArchive()
+                ? cartArchiveService.archiveOldCarts(partition)
+                : shoppingService.deleteOldCarts(partition, cleanupConfig.getBatchSize());
+        return cleanup
+                .doOnNext(removedCarts::increment)
+                .doFinally(signal -> runTimer.record(Duration.ofNanos(System.nanoTime() - start)));
+    }
+
+    private static String leaseName(final CartPartition partition) {
+        return partition.isWhole()
+                ? CLEANUP_LEASE
+                : CLEANUP_LEASE + "-" + partition.index() + "-of-" + partition.count();
+    }
 }
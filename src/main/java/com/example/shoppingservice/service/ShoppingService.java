@@ -1,105 +1,294 @@
 package com.example.shoppingservice.service;
 
+import com.example.shoppingservice.analytics.CartAnalytics;
 import com.example.shoppingservice.client.ProductClient;
+import com.example.shoppingservice.deadline.Deadline;
+import com.example.shoppingservice.events.CartEvent;
+import com.example.shoppingservice.events.CartEventHub;
+import com.example.shoppingservice.lifecycle.PendingWorkTracker;
+import com.example.shoppingservice.model.CartCursor;
+import com.example.shoppingservice.model.CartPage;
 import com.example.shoppingservice.model.Product;
 import com.example.shoppingservice.model.ShoppingCart;
 import com.example.shoppingservice.model.ShoppingCartRequestBody;
 import com.example.shoppingservice.repository.ShoppingCartRepository;
+import com.example.shoppingservice.runtime.CpuBoundScheduler;
 import lombok.AllArgsConstructor;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Service
 @AllArgsConstructor
 public class ShoppingService {
+    private static final int MAX_CONFLICT_RETRIES = 3;
+
     private final ShoppingCartRepository shoppingCartRepository;
     private final ProductClient productClient;
+    private final CartAnalytics cartAnalytics;
+    private final PendingWorkTracker pendingWork;
+    private final CartEventHub cartEventHub;
+    private final CpuBoundScheduler cpuBoundScheduler;
+    private final CartCleanupConfig cleanupConfig;
 
     public Mono<ShoppingCart> retrieveShoppingCart(final UUID id) {
         return shoppingCartRepository.findShoppingCartById(id)
                 .switchIfEmpty(Mono.defer(() -> Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Shopping cart not found"))));
     }
 
+    public Mono<CartPage> findShoppingCartsByOwner(final String owner, final String cursor, final int limit) {
+        return Mono.defer(() -> shoppingCartRepository.findShoppingCartsByOwner(owner, CartCursor.decode(cursor), limit + 1)
+                .collectList()
+                .map(carts -> carts.size() > limit
+                        ? new CartPage(carts.subList(0, limit), CartCursor.after(carts.get(limit - 1)).encode())
+                        : new CartPage(carts, null)));
+    }
+
     public Mono<ShoppingCart> createShoppingCart(final ShoppingCartRequestBody requestBody) {
-        return productClient.getAllProducts()
-                .filter(product -> requestBody.products().contains(product.getId()))
+        return pendingWork.track(rejectUnknownProducts(requestBody.products(), "No available products found")
+                .thenMany(Flux.defer(() -> productClient.getProducts(requestBody.products())))
                 .switchIfEmpty(Mono.defer(() -> Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "No available products found"))))
                 .collectList()
-                .map(productList -> new ShoppingCart(UUID.randomUUID(), productList, LocalDateTime.now()))
-                .flatMap(shoppingCartRepository::save);
+                .map(productList -> new ShoppingCart(UUID.randomUUID(), productList, LocalDateTime.now(), null, requestBody.owner()))
+                .flatMap(this::save)
+                .doOnNext(cart -> cartAnalytics.recordAdded(cart.getProducts(), cart.getProducts())));
     }
 
     public Mono<ShoppingCart> editShoppingCart(final UUID cartId, final ShoppingCartRequestBody requestBody) {
-        return productClient.getAllProducts()
-                .filter(product -> requestBody.products().contains(product.getId()))
+        return editShoppingCart(cartId, requestBody, null);
+    }
+
+    public Mono<ShoppingCart> editShoppingCart(final UUID cartId, final ShoppingCartRequestBody requestBody, final Long expectedVersion) {
+        return pendingWork.track(rejectUnknownProducts(requestBody.products(), "No products found")
+                .thenMany(Flux.defer(() -> productClient.getProducts(requestBody.products())))
                 .switchIfEmpty(Mono.defer(() -> Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "No products found"))))
                 .collectList()
-                .zipWith(shoppingCartRepository.findShoppingCartById(cartId))
-                .flatMap(tuple -> updateProducts(tuple.getT2(), tuple.getT1()))
-                .flatMap(shoppingCartRepository::save)
-                .switchIfEmpty(Mono.defer(() -> Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Shopping cart not found"))));
+                .flatMap(products -> mutate(cartId, expectedVersion, cart -> updateProducts(cart, products))));
     }
 
     public Mono<ShoppingCart> addProductsToShoppingCart(final UUID cartId, final List<UUID> productIds) {
-        return productClient.getAllProducts()
-                .filter(product -> productIds.contains(product.getId()))
+        return addProductsToShoppingCart(cartId, productIds, null);
+    }
+
+    public Mono<ShoppingCart> addProductsToShoppingCart(final UUID cartId, final List<UUID> productIds, final Long expectedVersion) {
+        return pendingWork.track(rejectUnknownProducts(productIds, "No products found")
+                .thenMany(Flux.defer(() -> productClient.getProducts(productIds)))
                 .switchIfEmpty(Mono.defer(() -> Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "No products found"))))
                 .collectList()
-                .zipWith(shoppingCartRepository.findShoppingCartById(cartId))
-                .flatMap(tuple -> addProducts(tuple.getT2(), tuple.getT1()))
-                .flatMap(shoppingCartRepository::save)
-                .switchIfEmpty(Mono.defer(() -> Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Shopping cart not found"))));
+                .flatMap(products -> mutate(cartId, expectedVersion, cart -> addProducts(cart, products))));
     }
 
     public Mono<ShoppingCart> removeProductsFromShoppingCart(final UUID cartId, final List<UUID> productIds) {
-        return shoppingCartRepository.findShoppingCartById(cartId)
-                .flatMap(cart -> removeProducts(cart, productIds))
-                .flatMap(shoppingCartRepository::save)
-                .switchIfEmpty(Mono.defer(() -> Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Shopping cart not found"))));
+        return removeProductsFromShoppingCart(cartId, productIds, null);
+    }
+
+    public Mono<ShoppingCart> removeProductsFromShoppingCart(final UUID cartId, final List<UUID> productIds, final Long expectedVersion) {
+        return pendingWork.track(mutate(cartId, expectedVersion, cart -> removeProducts(cart, productIds)));
+    }
+
+    public Mono<ShoppingCart> mergeShoppingCarts(final UUID targetId, final UUID sourceId) {
+        if (targetId.equals(sourceId)) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot merge a shopping cart into itself"));
+        }
+        return pendingWork.track(mergeAttempt(targetId, sourceId, MAX_CONFLICT_RETRIES));
     }
 
     public Mono<Void> deleteShoppingCart(final UUID id) {
-        return shoppingCartRepository.findShoppingCartById(id)
+        return pendingWork.track(shoppingCartRepository.findShoppingCartById(id)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Shopping cart not found"))))
+                .flatMap(shoppingCart -> Deadline.bound(shoppingCartRepository.deleteShoppingCartById(shoppingCart.getId()), "mongo"))
+                .doOnSuccess(ignored -> cartEventHub.publish(CartEvent.deleted(id))));
+    }
+
+    public Mono<Long> deleteOldCarts() {
+        return Mono.defer(() -> {
+            LocalDateTime threshold = retentionThreshold();
+            Set<UUID> watched = cartEventHub.watchedCartIds();
+            Mono<List<UUID>> expiringWatched = watched.isEmpty()
+                    ? Mono.just(List.of())
+                    : shoppingCartRepository.findByIdInAndInsertDateTimeBefore(watched, threshold)
+                            .map(ShoppingCart::getId)
+                            .collectList();
+            return expiringWatched.flatMap(expiring -> shoppingCartRepository.deleteByInsertDateTimeBefore(threshold)
+                    .doOnNext(deleted -> expiring.forEach(cartId -> cartEventHub.publish(CartEvent.deleted(cartId)))));
+        });
+    }
+
+    public Mono<Long> deleteOldCarts(final CartPartition partition, final int batchSize) {
+        if (partition.isWhole()) {
+            return deleteOldCarts();
+        }
+        return Mono.defer(() -> {
+            LocalDateTime threshold = retentionThreshold();
+            return shoppingCartRepository.findIdsByInsertDateTimeBefore(threshold)
+                    .filter(partition::contains)
+                    .buffer(batchSize)
+                    .concatMap(cartIds -> shoppingCartRepository.deleteByIdInAndInsertDateTimeBefore(cartIds, threshold)
+                            .doOnNext(deleted -> cartIds.forEach(cartId -> cartEventHub.publish(CartEvent.deleted(cartId)))))
+                    .reduce(0L, Long::sum);
+        });
+    }
+
+    private LocalDateTime retentionThreshold() {
+        return LocalDateTime.now(ZoneId.systemDefault()).minus(cleanupConfig.getRetention());
+    }
+
+    private Mono<ShoppingCart> mutate(final UUID cartId, final Long expectedVersion,
+                                      final Function<ShoppingCart, CartChange> change) {
+        return Mono.defer(() -> shoppingCartRepository.findShoppingCartById(cartId))
                 .switchIfEmpty(Mono.defer(() -> Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Shopping cart not found"))))
-                .flatMap(shoppingCart -> shoppingCartRepository.deleteShoppingCartById(shoppingCart.getId()));
+                .flatMap(this::withVersion)
+                .flatMap(cart -> expectedVersion == null || expectedVersion.equals(cart.getVersion())
+                        ? cpuBoundScheduler.run(() -> change.apply(cart))
+                        : Mono.error(new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Shopping cart version does not match")))
+                .flatMap(cartChange -> save(cartChange.cart())
+                        .doOnNext(saved -> {
+                            recordAdded(cartChange.added(), saved);
+                            cartEventHub.publish(CartEvent.updated(saved));
+                        }))
+                .retryWhen(Retry.max(expectedVersion == null ? MAX_CONFLICT_RETRIES : 0)
+                        .filter(OptimisticLockingFailureException.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .onErrorMap(OptimisticLockingFailureException.class, err -> new ResponseStatusException(
+                        expectedVersion == null ? HttpStatus.CONFLICT : HttpStatus.PRECONDITION_FAILED,
+                        "Shopping cart was modified concurrently"));
+    }
+
+    private Mono<ShoppingCart> withVersion(final ShoppingCart cart) {
+        if (cart.getVersion() != null) {
+            return Mono.just(cart);
+        }
+        return Deadline.bound(shoppingCartRepository.initialiseVersion(cart.getId()), "mongo")
+                .map(initialised -> {
+                    cart.setVersion(0L);
+                    return cart;
+                });
+    }
+
+    private Mono<ShoppingCart> mergeAttempt(final UUID targetId, final UUID sourceId, final int retriesLeft) {
+        return Mono.defer(() -> shoppingCartRepository.findShoppingCartById(sourceId))
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Shopping cart not found"))))
+                .flatMap(source -> Deadline.bound(shoppingCartRepository.appendMissingProducts(targetId, distinctProducts(source)), "mongo")
+                        .switchIfEmpty(Mono.defer(() -> Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Shopping cart not found"))))
+                        .map(before -> {
+                            CartChange change = mergeProducts(before, source);
+                            change.cart().setVersion(before.getVersion() == null ? 1L : before.getVersion() + 1);
+                            recordAdded(change.added(), change.cart());
+                            cartEventHub.publish(CartEvent.updated(change.cart()));
+                            return change.cart();
+                        })
+                        .flatMap(merged -> Deadline.bound(shoppingCartRepository.deleteByIdAndVersion(sourceId, source.getVersion()), "mongo")
+                                .flatMap(deleted -> {
+                                    if (deleted > 0) {
+                                        cartEventHub.publish(CartEvent.deleted(sourceId));
+                                        return Mono.just(merged);
+                                    }
+                                    return retryMerge(targetId, sourceId, retriesLeft, merged);
+                                })));
+    }
+
+    private Mono<ShoppingCart> retryMerge(final UUID targetId, final UUID sourceId, final int retriesLeft,
+                                          final ShoppingCart merged) {
+        return shoppingCartRepository.findShoppingCartById(sourceId)
+                .hasElement()
+                .flatMap(sourceStillExists -> {
+                    if (!sourceStillExists) {
+                        return Mono.just(merged);
+                    }
+                    if (retriesLeft == 0) {
+                        return Mono.error(new ResponseStatusException(HttpStatus.CONFLICT,
+                                "Source shopping cart kept changing during merge; merged products were kept and the merge can be retried"));
+                    }
+                    return mergeAttempt(targetId, sourceId, retriesLeft - 1);
+                });
+    }
+
+    private void recordAdded(final List<Product> added, final ShoppingCart saved) {
+        if (!added.isEmpty()) {
+            cartAnalytics.recordAdded(added, saved.getProducts());
+        }
     }
 
-    public Mono<Void> deleteOldCarts() {
-        LocalDateTime oneMinuteAgo = LocalDateTime.now(ZoneId.systemDefault()).minusMinutes(1);
-        return shoppingCartRepository.deleteByInsertDateTimeBefore(oneMinuteAgo);
+    private Mono<ShoppingCart> save(final ShoppingCart shoppingCart) {
+        return Deadline.bound(shoppingCartRepository.save(shoppingCart), "mongo");
     }
 
-    private Mono<ShoppingCart> updateProducts(final ShoppingCart shoppingCart, final List<Product> newProducts) {
+    private Mono<Void> rejectUnknownProducts(final List<UUID> productIds, final String message) {
+        return Mono.defer(() -> productClient.isDefinitelyUnknown(productIds)
+                ? Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, message))
+                : Mono.empty());
+    }
+
+    private CartChange updateProducts(final ShoppingCart shoppingCart, final List<Product> newProducts) {
+        List<Product> addedProducts = newlyAdded(shoppingCart, newProducts);
         shoppingCart.setProducts(newProducts);
-        return Mono.just(shoppingCart);
+        return new CartChange(shoppingCart, addedProducts);
     }
 
-    private Mono<ShoppingCart> removeProducts(final ShoppingCart shoppingCart, final List<UUID> productsToRemove) {
+    private CartChange removeProducts(final ShoppingCart shoppingCart, final List<UUID> productsToRemove) {
         if (CollectionUtils.isNotEmpty(productsToRemove)) {
             List<Product> updatedProducts = shoppingCart.getProducts().stream()
                     .filter(product -> !productsToRemove.contains(product.getId()))
                     .toList();
             shoppingCart.setProducts(updatedProducts);
         }
-        return Mono.just(shoppingCart);
+        return new CartChange(shoppingCart, List.of());
     }
 
-    private Mono<ShoppingCart> addProducts(final ShoppingCart shoppingCart, final List<Product> newProducts) {
-        if (CollectionUtils.isNotEmpty(newProducts)) {
-            List<Product> combinedProductList = Stream.concat(shoppingCart.getProducts().stream(), newProducts.stream())
-                    .distinct()
-                    .toList();
-            shoppingCart.setProducts(combinedProductList);
+    private CartChange addProducts(final ShoppingCart shoppingCart, final List<Product> newProducts) {
+        if (CollectionUtils.isEmpty(newProducts)) {
+            return new CartChange(shoppingCart, List.of());
+        }
+        List<Product> addedProducts = newlyAdded(shoppingCart, newProducts);
+        List<Product> combinedProductList = Stream.concat(shoppingCart.getProducts().stream(), newProducts.stream())
+                .distinct()
+                .toList();
+        shoppingCart.setProducts(combinedProductList);
+        return new CartChange(shoppingCart, addedProducts);
+    }
+
+    private CartChange mergeProducts(final ShoppingCart target, final ShoppingCart source) {
+        List<Product> addedProducts = newlyAdded(target, distinctProducts(source));
+        if (addedProducts.isEmpty()) {
+            return new CartChange(target, List.of());
         }
-        return Mono.just(shoppingCart);
+        target.setProducts(Stream.concat(CollectionUtils.emptyIfNull(target.getProducts()).stream(), addedProducts.stream())
+                .toList());
+        return new CartChange(target, addedProducts);
+    }
+
+    private static List<Product> distinctProducts(final ShoppingCart cart) {
+        Set<UUID> seen = new HashSet<>();
+        return ListUtils.emptyIfNull(cart.getProducts()).stream()
+                .filter(product -> seen.add(product.getId()))
+                .toList();
+    }
+
+    private List<Product> newlyAdded(final ShoppingCart shoppingCart, final List<Product> products) {
+        Set<UUID> existingIds = CollectionUtils.emptyIfNull(shoppingCart.getProducts()).stream()
+                .map(Product::getId)
+                .collect(Collectors.toSet());
+        return products.stream()
+                .filter(product -> !existingIds.contains(product.getId()))
+                .toList();
+    }
+
+    private record CartChange(ShoppingCart cart, List<Product> added) {
     }
-}
\ No newline at end of file
+}
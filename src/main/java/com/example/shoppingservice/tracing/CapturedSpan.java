@@ -0,0 +1,9 @@
+package com.example.shoppingservice.tracing;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+public record CapturedSpan(String name, String contextualName, String parent, Instant startedAt, Duration duration,
+                           String error, Map<String, String> tags) {
+}
@@ -0,0 +1,9 @@
+package com.example.shoppingservice.tracing;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+public record CapturedTrace(long id, String name, Instant startedAt, Duration duration, boolean error,
+                            List<CapturedSpan> spans) {
+}
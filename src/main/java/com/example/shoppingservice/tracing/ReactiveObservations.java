@@ -0,0 +1,48 @@
+package com.example.shoppingservice.tracing;
+
+import io.micrometer.common.KeyValues;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+public final class ReactiveObservations {
+
+    private ReactiveObservations() {
+    }
+
+    public static <T> Mono<T> observe(final Mono<T> source, final ObservationRegistry registry, final String name,
+                                      final String... keyValues) {
+        return Mono.deferContextual(context -> {
+            Observation observation = start(context, registry, name, keyValues);
+            return source
+                    .doOnError(observation::error)
+                    .doOnTerminate(observation::stop)
+                    .doOnCancel(observation::stop)
+                    .contextWrite(ctx -> ctx.put(ObservationThreadLocalAccessor.KEY, observation));
+        });
+    }
+
+    public static <T> Flux<T> observe(final Flux<T> source, final ObservationRegistry registry, final String name,
+                                      final String... keyValues) {
+        return Flux.deferContextual(context -> {
+            Observation observation = start(context, registry, name, keyValues);
+            return source
+                    .doOnError(observation::error)
+                    .doOnTerminate(observation::stop)
+                    .doOnCancel(observation::stop)
+                    .contextWrite(ctx -> ctx.put(ObservationThreadLocalAccessor.KEY, observation));
+        });
+    }
+
+    private static Observation start(final ContextView context, final ObservationRegistry registry, final String name,
+                                     final String... keyValues) {
+        Observation parent = context.getOrDefault(ObservationThreadLocalAccessor.KEY, null);
+        return Observation.createNotStarted(name, registry)
+                .parentObservation(parent)
+                .lowCardinalityKeyValues(KeyValues.of(keyValues))
+                .start();
+    }
+}
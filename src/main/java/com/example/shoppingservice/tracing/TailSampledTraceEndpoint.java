@@ -0,0 +1,27 @@
+package com.example.shoppingservice.tracing;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@Endpoint(id = "slowtraces")
+@AllArgsConstructor
+public class TailSampledTraceEndpoint {
+
+    private final TailSampler tailSampler;
+
+    @ReadOperation
+    public List<CapturedTrace> traces() {
+        return tailSampler.traces();
+    }
+
+    @ReadOperation
+    public CapturedTrace trace(@Selector final long id) {
+        return tailSampler.trace(id).orElse(null);
+    }
+}
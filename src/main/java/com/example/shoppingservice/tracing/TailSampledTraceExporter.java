@@ -0,0 +1,31 @@
+package com.example.shoppingservice.tracing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+@Component
+@Slf4j
+public class TailSampledTraceExporter {
+
+    private final WebClient webClient;
+
+    public TailSampledTraceExporter(final WebClient.Builder webClientBuilder, final TracingConfig config,
+                                    final TailSampler tailSampler) {
+        if (StringUtils.hasText(config.getExportUrl())) {
+            this.webClient = webClientBuilder.baseUrl(config.getExportUrl()).build();
+            tailSampler.onKept(this::export);
+        } else {
+            this.webClient = null;
+        }
+    }
+
+    private void export(final CapturedTrace trace) {
+        webClient.post()
+                .bodyValue(trace)
+                .retrieve()
+                .toBodilessEntity()
+                .subscribe(null, err -> log.warn("Failed to export trace {}: {}", trace.id(), err.toString()));
+    }
+}
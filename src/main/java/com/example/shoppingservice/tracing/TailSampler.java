@@ -0,0 +1,165 @@
+package com.example.shoppingservice.tracing;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+@Component
+@Slf4j
+public class TailSampler implements ObservationHandler<Observation.Context> {
+
+    private final TracingConfig config;
+
+    private final Counter keptTraces;
+
+    private final Counter droppedTraces;
+
+    private final AtomicLong ids = new AtomicLong();
+
+    private final Deque<CapturedTrace> traces = new ArrayDeque<>();
+
+    private final List<Consumer<CapturedTrace>> listeners = new CopyOnWriteArrayList<>();
+
+    public TailSampler(final TracingConfig config, final MeterRegistry meterRegistry) {
+        this.config = config;
+        this.keptTraces = meterRegistry.counter("shopping.tracing.tail.traces", "decision", "kept");
+        this.droppedTraces = meterRegistry.counter("shopping.tracing.tail.traces", "decision", "dropped");
+        meterRegistry.gauge("shopping.tracing.tail.retained", traces, Deque::size);
+    }
+
+    @Override
+    public boolean supportsContext(final Observation.Context context) {
+        return config.isTailSamplingEnabled();
+    }
+
+    @Override
+    public void onStart(final Observation.Context context) {
+        TraceBuffer buffer = Optional.ofNullable(context.getParentObservation())
+                .map(ObservationView::getContextView)
+                .map(parent -> parent.<TraceBuffer>get(TraceBuffer.class))
+                .orElse(null);
+        context.put(SpanStart.class, new SpanStart(System.nanoTime(), Instant.now()));
+        context.put(TraceBuffer.class, buffer == null ? new TraceBuffer(context) : buffer);
+    }
+
+    @Override
+    public void onStop(final Observation.Context context) {
+        SpanStart start = context.get(SpanStart.class);
+        TraceBuffer buffer = context.get(TraceBuffer.class);
+        if (start == null || buffer == null) {
+            return;
+        }
+        CapturedSpan span = toSpan(context, start);
+        if (buffer.root() != context) {
+            buffer.add(span, config.getMaxSpansPerTrace());
+            return;
+        }
+        boolean error = span.error() != null || buffer.hasError();
+        if (!error && span.duration().compareTo(config.getLatencyThreshold()) < 0) {
+            droppedTraces.increment();
+            return;
+        }
+        List<CapturedSpan> spans = new ArrayList<>(buffer.spans());
+        spans.add(span);
+        CapturedTrace trace = new CapturedTrace(ids.incrementAndGet(), span.contextualName(), start.wallClock(),
+                span.duration(), error, List.copyOf(spans));
+        retain(trace);
+        keptTraces.increment();
+        listeners.forEach(listener -> listener.accept(trace));
+    }
+
+    public List<CapturedTrace> traces() {
+        synchronized (traces) {
+            return List.copyOf(traces);
+        }
+    }
+
+    public Optional<CapturedTrace> trace(final long id) {
+        return traces().stream()
+                .filter(trace -> trace.id() == id)
+                .findFirst();
+    }
+
+    public void onKept(final Consumer<CapturedTrace> listener) {
+        listeners.add(listener);
+    }
+
+    private void retain(final CapturedTrace trace) {
+        synchronized (traces) {
+            traces.addFirst(trace);
+            while (traces.size() > config.getMaxTraces()) {
+                traces.removeLast();
+            }
+        }
+    }
+
+    private static CapturedSpan toSpan(final Observation.Context context, final SpanStart start) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        for (KeyValue keyValue : context.getAllKeyValues()) {
+            tags.put(keyValue.getKey(), keyValue.getValue());
+        }
+        String parent = Optional.ofNullable(context.getParentObservation())
+                .map(observation -> observation.getContextView().getName())
+                .orElse(null);
+        String error = context.getError() == null ? null : context.getError().toString();
+        String contextualName = context.getContextualName() == null ? context.getName() : context.getContextualName();
+        return new CapturedSpan(context.getName(), contextualName, parent, start.wallClock(),
+                Duration.ofNanos(System.nanoTime() - start.nanos()), error, tags);
+    }
+
+    private record SpanStart(long nanos, Instant wallClock) {
+    }
+
+    private static final class TraceBuffer {
+
+        private final Observation.Context root;
+
+        private final List<CapturedSpan> spans = new CopyOnWriteArrayList<>();
+
+        private final AtomicInteger errors = new AtomicInteger();
+
+        private TraceBuffer(final Observation.Context root) {
+            this.root = root;
+        }
+
+        private Observation.Context root() {
+            return root;
+        }
+
+        private List<CapturedSpan> spans() {
+            return spans;
+        }
+
+        private boolean hasError() {
+            return errors.get() > 0;
+        }
+
+        private void add(final CapturedSpan span, final int maxSpans) {
+            if (span.error() != null) {
+                errors.incrementAndGet();
+            }
+            if (spans.size() < maxSpans) {
+                spans.add(span);
+            }
+        }
+    }
+}
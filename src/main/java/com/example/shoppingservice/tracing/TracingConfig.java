@@ -0,0 +1,21 @@
+package com.example.shoppingservice.tracing;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "shopping.tracing")
+@Getter
+@Setter
+public class TracingConfig {
+
+    private boolean tailSamplingEnabled = true;
+    private Duration latencyThreshold = Duration.ofMillis(500);
+    private int maxTraces = 200;
+    private int maxSpansPerTrace = 256;
+    private String exportUrl;
+}
@@ -0,0 +1,84 @@
+package com.example.shoppingservice.admission;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private AdmissionConfig config;
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    public void setUp() {
+        config = new AdmissionConfig();
+        config.setInitialLimit(10);
+        config.setMinLimit(2);
+        config.setMaxLimit(20);
+        config.setLatencyThreshold(Duration.ofMillis(100));
+        limiter = new AdaptiveConcurrencyLimiter(config);
+    }
+
+    @Test
+    void should_reject_above_limit() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire(1.0)).isTrue();
+        }
+
+        assertThat(limiter.tryAcquire(1.0)).isFalse();
+    }
+
+    @Test
+    void should_shed_lower_priority_first() {
+        for (int i = 0; i < 8; i++) {
+            assertThat(limiter.tryAcquire(0.8)).isTrue();
+        }
+
+        assertThat(limiter.tryAcquire(0.8)).isFalse();
+        assertThat(limiter.tryAcquire(1.0)).isTrue();
+    }
+
+    @Test
+    void should_decrease_limit_on_slow_or_dropped_requests() {
+        limiter.tryAcquire(1.0);
+        limiter.release(Duration.ofMillis(500), false);
+        limiter.tryAcquire(1.0);
+        limiter.release(Duration.ofMillis(10), true);
+
+        assertThat(limiter.limit()).isEqualTo(8);
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    @Test
+    void should_increase_limit_when_busy_and_fast() {
+        for (int i = 0; i < 6; i++) {
+            limiter.tryAcquire(1.0);
+        }
+
+        limiter.release(Duration.ofMillis(10), false);
+
+        assertThat(limiter.limit()).isEqualTo(11);
+    }
+
+    @Test
+    void should_not_increase_limit_when_underused() {
+        limiter.tryAcquire(1.0);
+
+        limiter.release(Duration.ofMillis(10), false);
+
+        assertThat(limiter.limit()).isEqualTo(10);
+    }
+
+    @Test
+    void should_keep_limit_within_bounds() {
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire(1.0);
+            limiter.release(Duration.ofSeconds(1), false);
+        }
+
+        assertThat(limiter.limit()).isEqualTo(2);
+    }
+}
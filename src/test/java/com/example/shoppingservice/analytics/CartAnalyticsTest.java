@@ -0,0 +1,147 @@
+package com.example.shoppingservice.analytics;
+
+import com.example.shoppingservice.ProductDataProvider;
+import com.example.shoppingservice.model.Category;
+import com.example.shoppingservice.model.Product;
+import com.mongodb.client.result.DeleteResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartAnalyticsTest {
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+    private CartAnalytics cartAnalytics;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(mongoTemplate.find(any(Query.class), eq(AnalyticsCheckpoint.class))).thenReturn(Flux.empty());
+        when(mongoTemplate.remove(any(Query.class), eq(AnalyticsCheckpoint.class))).thenReturn(Mono.just(DeleteResult.acknowledged(0)));
+        cartAnalytics = new CartAnalytics(mongoTemplate, config("node-a"));
+    }
+
+    @Test
+    void should_track_most_carted_products_and_categories() {
+        Product popular = ProductDataProvider.getSimpleProduct();
+        Product other = ProductDataProvider.getSimpleProduct();
+        Product rare = ProductDataProvider.getSimpleProduct();
+
+        cartAnalytics.recordAdded(List.of(popular, other), List.of(popular, other));
+        cartAnalytics.recordAdded(List.of(popular), List.of(popular));
+        cartAnalytics.recordAdded(List.of(popular, other), List.of(popular, other));
+        cartAnalytics.recordAdded(List.of(rare), List.of(rare));
+
+        assertThat(cartAnalytics.topProducts(2))
+                .containsExactly(new HeavyHitter<>(popular.getId(), 3), new HeavyHitter<>(other.getId(), 2));
+        assertThat(cartAnalytics.productCount(rare.getId())).isGreaterThanOrEqualTo(1);
+        assertThat(cartAnalytics.topCategories(1))
+                .singleElement()
+                .satisfies(hitter -> {
+                    assertThat(hitter.key()).isIn(Category.BABY_PRODUCTS, Category.AUTOMOTIVE);
+                    assertThat(hitter.count()).isEqualTo(6);
+                });
+    }
+
+    @Test
+    void should_count_each_co_occurring_pair_once_per_mutation() {
+        Product first = ProductDataProvider.getSimpleProduct();
+        Product second = ProductDataProvider.getSimpleProduct();
+        Product third = ProductDataProvider.getSimpleProduct();
+
+        cartAnalytics.recordAdded(List.of(first, second), List.of(first, second));
+        cartAnalytics.recordAdded(List.of(third), List.of(first, second, third));
+
+        assertThat(cartAnalytics.coOccurring(first.getId(), 10))
+                .containsExactlyInAnyOrder(new HeavyHitter<>(second.getId(), 1), new HeavyHitter<>(third.getId(), 1));
+    }
+
+    @Test
+    void should_merge_checkpoint_into_counts_recorded_before_restore() {
+        Product product = ProductDataProvider.getSimpleProduct();
+        cartAnalytics.recordAdded(List.of(product), List.of(product));
+        when(mongoTemplate.save(any(AnalyticsCheckpoint.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        cartAnalytics.checkpoint()
+                .as(StepVerifier::create)
+                .expectNextCount(1)
+                .expectComplete()
+                .verify();
+
+        ArgumentCaptor<AnalyticsCheckpoint> captor = ArgumentCaptor.forClass(AnalyticsCheckpoint.class);
+        verify(mongoTemplate).save(captor.capture());
+        assertThat(captor.getValue().getId()).isEqualTo("cart-analytics:node-a");
+        CartAnalytics restored = new CartAnalytics(mongoTemplate, config("node-a"));
+        when(mongoTemplate.findById(eq("cart-analytics:node-a"), eq(AnalyticsCheckpoint.class))).thenReturn(Mono.just(captor.getValue()));
+        restored.recordAdded(List.of(product), List.of(product));
+
+        restored.restore()
+                .as(StepVerifier::create)
+                .expectComplete()
+                .verify();
+        restored.restore()
+                .as(StepVerifier::create)
+                .expectComplete()
+                .verify();
+
+        assertThat(restored.topProducts(10)).containsExactly(new HeavyHitter<>(product.getId(), 2));
+        assertThat(restored.productCount(UUID.randomUUID())).isZero();
+    }
+
+    @Test
+    void should_merge_checkpoints_of_other_nodes_on_read() {
+        Product shared = ProductDataProvider.getSimpleProduct();
+        Product remoteOnly = ProductDataProvider.getSimpleProduct();
+        CartAnalytics otherNode = new CartAnalytics(mongoTemplate, config("node-b"));
+        otherNode.recordAdded(List.of(shared, remoteOnly), List.of(shared, remoteOnly));
+        otherNode.recordAdded(List.of(remoteOnly), List.of(shared, remoteOnly));
+        when(mongoTemplate.save(any(AnalyticsCheckpoint.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        AnalyticsCheckpoint remote = otherNode.checkpoint().block();
+        AnalyticsCheckpoint own = AnalyticsCheckpoint.builder().id("cart-analytics:node-a").savedAt(Instant.now()).build();
+        AnalyticsCheckpoint expired = otherNode.checkpoint().block();
+        expired.setId("cart-analytics:old-pod");
+        expired.setSavedAt(Instant.now().minus(Duration.ofHours(1)));
+        when(mongoTemplate.findById(eq("cart-analytics:node-a"), eq(AnalyticsCheckpoint.class))).thenReturn(Mono.empty());
+        when(mongoTemplate.find(any(Query.class), eq(AnalyticsCheckpoint.class))).thenReturn(Flux.just(remote, own, expired));
+
+        cartAnalytics.recordAdded(List.of(shared), List.of(shared));
+        cartAnalytics.restore()
+                .as(StepVerifier::create)
+                .expectComplete()
+                .verify();
+
+        assertThat(cartAnalytics.topProducts(2))
+                .containsExactlyInAnyOrder(new HeavyHitter<>(shared.getId(), 2), new HeavyHitter<>(remoteOnly.getId(), 2));
+        assertThat(cartAnalytics.productCount(remoteOnly.getId())).isEqualTo(2);
+        assertThat(cartAnalytics.coOccurring(shared.getId(), 10))
+                .containsExactly(new HeavyHitter<>(remoteOnly.getId(), 2));
+        verify(mongoTemplate, atLeastOnce()).remove(any(Query.class), eq(AnalyticsCheckpoint.class));
+    }
+
+    private static AnalyticsConfig config(final String instanceId) {
+        AnalyticsConfig config = new AnalyticsConfig();
+        config.setTopK(2);
+        config.setInstanceId(instanceId);
+        return config;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.shoppingservice.api;
+
+import com.example.shoppingservice.ProductDataProvider;
+import com.example.shoppingservice.model.ShoppingCart;
+import com.example.shoppingservice.model.ShoppingCartRequestBody;
+import com.example.shoppingservice.service.ShoppingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+abstract class CartTransportScenarios {
+
+    protected static final ShoppingCart SHOPPING_CART = new ShoppingCart(UUID.randomUUID(),
+            List.of(ProductDataProvider.getSimpleProduct()), LocalDateTime.now().withNano(0), 1L);
+
+    @Mock
+    protected ShoppingService shoppingService;
+
+    @BeforeEach
+    public void openMocks() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    protected abstract Mono<ShoppingCart> create(ShoppingCartRequestBody requestBody);
+
+    protected abstract Mono<ShoppingCart> get(UUID cartId);
+
+    protected abstract Mono<ShoppingCart> add(UUID cartId, List<UUID> productIds);
+
+    protected abstract Mono<Void> delete(UUID cartId);
+
+    @Test
+    void should_create_cart() {
+        when(shoppingService.createShoppingCart(any())).thenReturn(Mono.just(SHOPPING_CART));
+
+        create(new ShoppingCartRequestBody(List.of(UUID.randomUUID())))
+                .as(StepVerifier::create)
+                .expectNext(SHOPPING_CART)
+                .verifyComplete();
+    }
+
+    @Test
+    void should_get_cart() {
+        when(shoppingService.retrieveShoppingCart(SHOPPING_CART.getId())).thenReturn(Mono.just(SHOPPING_CART));
+
+        get(SHOPPING_CART.getId())
+                .as(StepVerifier::create)
+                .expectNext(SHOPPING_CART)
+                .verifyComplete();
+    }
+
+    @Test
+    void should_fail_for_missing_cart() {
+        when(shoppingService.retrieveShoppingCart(any()))
+                .thenReturn(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Shopping cart not found")));
+
+        get(UUID.randomUUID())
+                .as(StepVerifier::create)
+                .expectError()
+                .verify();
+    }
+
+    @Test
+    void should_add_products() {
+        List<UUID> productIds = List.of(UUID.randomUUID());
+        when(shoppingService.addProductsToShoppingCart(eq(SHOPPING_CART.getId()), eq(productIds), any()))
+                .thenReturn(Mono.just(SHOPPING_CART));
+
+        add(SHOPPING_CART.getId(), productIds)
+                .as(StepVerifier::create)
+                .expectNext(SHOPPING_CART)
+                .verifyComplete();
+    }
+
+    @Test
+    void should_delete_cart() {
+        when(shoppingService.deleteShoppingCart(SHOPPING_CART.getId())).thenReturn(Mono.empty());
+
+        delete(SHOPPING_CART.getId())
+                .as(StepVerifier::create)
+                .verifyComplete();
+
+        verify(shoppingService).deleteShoppingCart(SHOPPING_CART.getId());
+    }
+}
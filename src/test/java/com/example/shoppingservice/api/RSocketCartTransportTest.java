@@ -0,0 +1,244 @@
+package com.example.shoppingservice.api;
+
+import com.example.shoppingservice.admission.AdaptiveConcurrencyLimiter;
+import com.example.shoppingservice.admission.AdmissionConfig;
+import com.example.shoppingservice.admission.AdmissionRSocketInterceptor;
+import com.example.shoppingservice.config.RSocketConfig;
+import com.example.shoppingservice.deadline.DeadlineConfig;
+import com.example.shoppingservice.deadline.DeadlineRSocketInterceptor;
+import com.example.shoppingservice.idempotency.IdempotencyConfig;
+import com.example.shoppingservice.idempotency.IdempotencyStore;
+import com.example.shoppingservice.model.CartMutation;
+import com.example.shoppingservice.model.CartMutationResult;
+import com.example.shoppingservice.model.ShoppingCart;
+import com.example.shoppingservice.model.ShoppingCartRequestBody;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.rsocket.core.RSocketServer;
+import io.rsocket.exceptions.ApplicationErrorException;
+import io.rsocket.exceptions.RejectedException;
+import io.rsocket.transport.netty.server.CloseableChannel;
+import io.rsocket.transport.netty.server.TcpServerTransport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import org.springframework.messaging.rsocket.annotation.support.RSocketMessageHandler;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RSocketCartTransportTest extends CartTransportScenarios {
+
+    private CloseableChannel server;
+    private RSocketRequester requester;
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AdmissionConfig admissionConfig = new AdmissionConfig();
+        admissionConfig.setInitialLimit(2);
+        admissionConfig.setLatencyThreshold(Duration.ofMinutes(1));
+        limiter = new AdaptiveConcurrencyLimiter(admissionConfig);
+        DeadlineConfig deadlineConfig = new DeadlineConfig();
+        LocalValidatorFactoryBean validator = new LocalValidatorFactoryBean();
+        validator.afterPropertiesSet();
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        RSocketStrategies strategies = RSocketStrategies.builder()
+                .encoders(encoders -> encoders.add(new Jackson2JsonEncoder(objectMapper)))
+                .decoders(decoders -> decoders.add(new Jackson2JsonDecoder(objectMapper)))
+                .build();
+        RSocketMessageHandler handler = new RSocketMessageHandler();
+        handler.setRSocketStrategies(strategies);
+        handler.setHandlers(List.of(new CartRSocketController(shoppingService,
+                new IdempotencyStore(new IdempotencyConfig(), null, meterRegistry), deadlineConfig)));
+        new RSocketConfig().rsocketValidation(validator).customize(handler);
+        handler.afterPropertiesSet();
+        RSocketServer rsocketServer = RSocketServer.create(handler.responder());
+        new RSocketConfig().rsocketInterceptors(new AdmissionRSocketInterceptor(admissionConfig, limiter, meterRegistry),
+                new DeadlineRSocketInterceptor(deadlineConfig, meterRegistry)).customize(rsocketServer);
+        server = rsocketServer
+                .bind(TcpServerTransport.create("localhost", 0))
+                .block();
+        requester = RSocketRequester.builder()
+                .rsocketStrategies(strategies)
+                .tcp("localhost", server.address().getPort());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        requester.dispose();
+        server.dispose();
+    }
+
+    @Override
+    protected Mono<ShoppingCart> create(final ShoppingCartRequestBody requestBody) {
+        return requester.route("cart.create").data(requestBody).retrieveMono(ShoppingCart.class);
+    }
+
+    @Override
+    protected Mono<ShoppingCart> get(final UUID cartId) {
+        return requester.route("cart.get").data(cartId).retrieveMono(ShoppingCart.class);
+    }
+
+    @Override
+    protected Mono<ShoppingCart> add(final UUID cartId, final List<UUID> productIds) {
+        return requester.route("cart.mutate")
+                .data(new CartMutation(cartId, CartMutation.Operation.ADD, productIds, null))
+                .retrieveMono(ShoppingCart.class);
+    }
+
+    @Override
+    protected Mono<Void> delete(final UUID cartId) {
+        return requester.route("cart.mutate")
+                .data(new CartMutation(cartId, CartMutation.Operation.DELETE, null, null))
+                .retrieveMono(Void.class);
+    }
+
+    @Test
+    void should_stream_existing_carts_in_request_order() {
+        UUID missing = UUID.randomUUID();
+        when(shoppingService.retrieveShoppingCart(SHOPPING_CART.getId())).thenReturn(Mono.just(SHOPPING_CART));
+        when(shoppingService.retrieveShoppingCart(missing))
+                .thenReturn(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Shopping cart not found")));
+
+        requester.route("cart.get-many")
+                .data(List.of(missing, SHOPPING_CART.getId(), SHOPPING_CART.getId()))
+                .retrieveFlux(ShoppingCart.class)
+                .as(StepVerifier::create)
+                .expectNext(SHOPPING_CART, SHOPPING_CART)
+                .verifyComplete();
+    }
+
+    @Test
+    void should_apply_mutation_batches_over_a_channel() {
+        UUID missing = UUID.randomUUID();
+        List<UUID> productIds = List.of(UUID.randomUUID());
+        when(shoppingService.addProductsToShoppingCart(eq(SHOPPING_CART.getId()), eq(productIds), any()))
+                .thenReturn(Mono.just(SHOPPING_CART));
+        when(shoppingService.removeProductsFromShoppingCart(eq(missing), any(), any()))
+                .thenReturn(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Shopping cart not found")));
+
+        requester.route("cart.mutations")
+                .data(Flux.just(
+                        new CartMutation(SHOPPING_CART.getId(), CartMutation.Operation.ADD, productIds, null),
+                        new CartMutation(missing, CartMutation.Operation.REMOVE, productIds, null),
+                        new CartMutation(SHOPPING_CART.getId(), CartMutation.Operation.ADD, productIds, null)))
+                .retrieveFlux(CartMutationResult.class)
+                .as(StepVerifier::create)
+                .expectNext(CartMutationResult.success(SHOPPING_CART.getId(), SHOPPING_CART))
+                .assertNext(result -> {
+                    assertThat(result.cartId()).isEqualTo(missing);
+                    assertThat(result.error()).isEqualTo("Shopping cart not found");
+                })
+                .expectNext(CartMutationResult.success(SHOPPING_CART.getId(), SHOPPING_CART))
+                .verifyComplete();
+    }
+
+    @Test
+    void should_report_invalid_mutation_without_closing_the_channel() {
+        List<UUID> productIds = List.of(UUID.randomUUID());
+        when(shoppingService.addProductsToShoppingCart(eq(SHOPPING_CART.getId()), eq(productIds), any()))
+                .thenReturn(Mono.just(SHOPPING_CART));
+
+        requester.route("cart.mutations")
+                .data(Flux.just(
+                        new CartMutation(SHOPPING_CART.getId(), null, productIds, null),
+                        new CartMutation(SHOPPING_CART.getId(), CartMutation.Operation.ADD, productIds, null)))
+                .retrieveFlux(CartMutationResult.class)
+                .as(StepVerifier::create)
+                .expectNext(CartMutationResult.failure(SHOPPING_CART.getId(), "Mutation operation is required"))
+                .expectNext(CartMutationResult.success(SHOPPING_CART.getId(), SHOPPING_CART))
+                .verifyComplete();
+    }
+
+    @Test
+    void should_replay_mutation_with_same_idempotency_key() {
+        List<UUID> productIds = List.of(UUID.randomUUID());
+        when(shoppingService.addProductsToShoppingCart(eq(SHOPPING_CART.getId()), eq(productIds), any()))
+                .thenReturn(Mono.just(SHOPPING_CART));
+        CartMutation mutation = new CartMutation(SHOPPING_CART.getId(), CartMutation.Operation.ADD, productIds, null, "key-1");
+
+        requester.route("cart.mutations")
+                .data(Flux.just(mutation, mutation))
+                .retrieveFlux(CartMutationResult.class)
+                .as(StepVerifier::create)
+                .expectNextCount(2)
+                .verifyComplete();
+
+        verify(shoppingService, times(1)).addProductsToShoppingCart(eq(SHOPPING_CART.getId()), eq(productIds), any());
+    }
+
+    @Test
+    void should_reject_invalid_create_payload() {
+        requester.route("cart.create")
+                .data(new ShoppingCartRequestBody(null, "owner"))
+                .retrieveMono(ShoppingCart.class)
+                .as(StepVerifier::create)
+                .expectErrorSatisfies(err -> assertThat(err)
+                        .isInstanceOf(ApplicationErrorException.class)
+                        .hasMessage("products must not be null"))
+                .verify();
+
+        verify(shoppingService, never()).createShoppingCart(any());
+    }
+
+    @Test
+    void should_return_status_reason_as_application_error() {
+        when(shoppingService.retrieveShoppingCart(any()))
+                .thenReturn(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Shopping cart not found")));
+
+        get(UUID.randomUUID())
+                .as(StepVerifier::create)
+                .expectErrorSatisfies(err -> assertThat(err)
+                        .isInstanceOf(ApplicationErrorException.class)
+                        .hasMessage("Shopping cart not found"))
+                .verify();
+    }
+
+    @Test
+    void should_reject_requests_above_admission_limit() {
+        limiter.tryAcquire(1.0);
+        limiter.tryAcquire(1.0);
+
+        get(SHOPPING_CART.getId())
+                .as(StepVerifier::create)
+                .expectError(RejectedException.class)
+                .verify();
+
+        verify(shoppingService, never()).retrieveShoppingCart(any());
+    }
+
+    @Test
+    void should_feed_request_response_latency_to_admission_limit() {
+        when(shoppingService.retrieveShoppingCart(SHOPPING_CART.getId())).thenReturn(Mono.just(SHOPPING_CART));
+
+        get(SHOPPING_CART.getId())
+                .as(StepVerifier::create)
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(limiter.inFlight()).isZero();
+        assertThat(limiter.limit()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.shoppingservice.api;
+
+import com.example.shoppingservice.model.ShoppingCart;
+import com.example.shoppingservice.model.ShoppingCartRequestBody;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.test.web.reactive.server.FluxExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+class RestCartTransportTest extends CartTransportScenarios {
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    public void setUp() {
+        webTestClient = WebTestClient.bindToController(new ShoppingController(shoppingService, null, ObservationRegistry.NOOP)).build();
+    }
+
+    @Override
+    protected Mono<ShoppingCart> create(final ShoppingCartRequestBody requestBody) {
+        return body(webTestClient.post().uri("/shopping/cart").bodyValue(requestBody).exchange());
+    }
+
+    @Override
+    protected Mono<ShoppingCart> get(final UUID cartId) {
+        return body(webTestClient.get().uri("/shopping/cart/{cartId}", cartId).exchange());
+    }
+
+    @Override
+    protected Mono<ShoppingCart> add(final UUID cartId, final List<UUID> productIds) {
+        String ids = productIds.stream().map(UUID::toString).collect(Collectors.joining(","));
+        return body(webTestClient.patch().uri("/shopping/cart/{cartId}/add?productIds={ids}", cartId, ids).exchange());
+    }
+
+    @Override
+    protected Mono<Void> delete(final UUID cartId) {
+        return body(webTestClient.delete().uri("/shopping/cart/{cartId}", cartId).exchange()).then();
+    }
+
+    private static Mono<ShoppingCart> body(final WebTestClient.ResponseSpec response) {
+        return Mono.defer(() -> {
+            FluxExchangeResult<ShoppingCart> result = response.returnResult(ShoppingCart.class);
+            if (!result.getStatus().is2xxSuccessful()) {
+                return Mono.error(new IllegalStateException("Unexpected status " + result.getStatus()));
+            }
+            return result.getResponseBody().next();
+        });
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.shoppingservice.api;
 
+import com.example.shoppingservice.idempotency.IdempotencyStore;
 import com.example.shoppingservice.model.*;
 import com.example.shoppingservice.service.ShoppingService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -16,7 +18,13 @@ import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class ShoppingControllerTest {
@@ -50,6 +58,8 @@ class ShoppingControllerTest {
     private static final ShoppingCartRequestBody BODY = new ShoppingCartRequestBody(List.of(UUID.randomUUID()));
     @Mock
     private ShoppingService shoppingService;
+    @Mock
+    private IdempotencyStore idempotencyStore;
 
     @InjectMocks
     private ShoppingController shoppingController;
@@ -75,6 +85,48 @@ class ShoppingControllerTest {
                 .expectBody(ShoppingCart.class);
     }
 
+    @Test
+    void should_route_create_with_idempotency_key_through_store() {
+        when(idempotencyStore.execute(eq("key-1"), any(), any()))
+                .thenReturn(Mono.just(SHOPPING_CART));
+
+        webTestClient.post().uri("/shopping/cart")
+                .header("Idempotency-Key", "key-1")
+                .bodyValue(BODY)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(ShoppingCart.class)
+                .isEqualTo(SHOPPING_CART);
+
+        verify(shoppingService, never()).createShoppingCart(any());
+    }
+
+    @Test
+    void should_fingerprint_product_ids_with_colliding_hash_codes_differently() {
+        UUID cartId = UUID.randomUUID();
+        UUID first = new UUID(0, 1);
+        UUID second = new UUID(1, 0);
+        when(idempotencyStore.execute(eq("key-1"), any(), any()))
+                .thenReturn(Mono.just(SHOPPING_CART));
+
+        webTestClient.patch().uri("/shopping/cart/{id}/add?productIds={productId}", cartId, first)
+                .header("Idempotency-Key", "key-1")
+                .exchange()
+                .expectStatus()
+                .isOk();
+        webTestClient.patch().uri("/shopping/cart/{id}/add?productIds={productId}", cartId, second)
+                .header("Idempotency-Key", "key-1")
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        ArgumentCaptor<String> fingerprints = ArgumentCaptor.forClass(String.class);
+        verify(idempotencyStore, times(2)).execute(eq("key-1"), fingerprints.capture(), any());
+        assertThat(first.hashCode()).isEqualTo(second.hashCode());
+        assertThat(fingerprints.getAllValues().get(0)).isNotEqualTo(fingerprints.getAllValues().get(1));
+    }
+
     @Test
     void should_return_error_if_wrong_shopping_cart_url() {
         when(shoppingService.createShoppingCart(any()))
@@ -163,9 +215,61 @@ class ShoppingControllerTest {
                 .isBadRequest();
     }
 
+    @Test
+    void should_return_etag_for_versioned_cart() {
+        ShoppingCart versionedCart = ShoppingCart.builder().id(UUID.randomUUID()).products(List.of()).version(3L).build();
+        when(shoppingService.retrieveShoppingCart(any()))
+                .thenReturn(Mono.just(versionedCart));
+
+        webTestClient.get().uri("/shopping/cart/{cartId}", versionedCart.getId())
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .valueEquals("ETag", "\"3\"");
+    }
+
+    @Test
+    void should_return_not_modified_when_etag_matches() {
+        ShoppingCart versionedCart = ShoppingCart.builder().id(UUID.randomUUID()).products(List.of()).version(3L).build();
+        when(shoppingService.retrieveShoppingCart(any()))
+                .thenReturn(Mono.just(versionedCart));
+
+        webTestClient.get().uri("/shopping/cart/{cartId}", versionedCart.getId())
+                .header("If-None-Match", "\"3\"")
+                .exchange()
+                .expectStatus()
+                .isNotModified()
+                .expectBody()
+                .isEmpty();
+    }
+
+    @Test
+    void should_pass_if_match_version_to_edit() {
+        when(shoppingService.editShoppingCart(any(), any(), eq(7L)))
+                .thenReturn(Mono.just(SHOPPING_CART));
+
+        webTestClient.put().uri("/shopping/cart/{cartId}", UUID.randomUUID())
+                .header("If-Match", "\"7\"")
+                .bodyValue(BODY)
+                .exchange()
+                .expectStatus()
+                .isOk();
+    }
+
+    @Test
+    void should_return_precondition_failed_for_malformed_if_match() {
+        webTestClient.patch()
+                .uri("/shopping/cart/{cartId}/add?productIds=0073bddf-dcd5-4715-b914-eb48c35b9016", UUID.randomUUID())
+                .header("If-Match", "\"abc\"")
+                .exchange()
+                .expectStatus()
+                .isEqualTo(412);
+    }
+
     @Test
     void should_return_updated_shopping_cart() {
-        when(shoppingService.editShoppingCart(any(), any()))
+        when(shoppingService.editShoppingCart(any(), any(), any()))
                 .thenReturn(Mono.just(SHOPPING_CART));
 
         webTestClient.put().uri("/shopping/cart/{cartId}", UUID.randomUUID())
@@ -179,7 +283,7 @@ class ShoppingControllerTest {
 
     @Test
     void should_return_error_if_edit_returned_error() {
-        when(shoppingService.editShoppingCart(any(), any()))
+        when(shoppingService.editShoppingCart(any(), any(), any()))
                 .thenReturn(Mono.error(ERROR));
 
         webTestClient.put().uri("/shopping/cart/{cartId}", UUID.randomUUID())
@@ -191,7 +295,7 @@ class ShoppingControllerTest {
 
     @Test
     void should_return_bad_request_if_cart_id_edit_not_uuid() {
-        when(shoppingService.editShoppingCart(any(), any()))
+        when(shoppingService.editShoppingCart(any(), any(), any()))
                 .thenReturn(Mono.just(SHOPPING_CART));
 
         webTestClient.put().uri("/shopping/cart/{cartId}", NOT_UUID)
@@ -203,7 +307,7 @@ class ShoppingControllerTest {
 
     @Test
     void should_return_bad_request_if_edit_body_not_valid() {
-        when(shoppingService.editShoppingCart(any(), any()))
+        when(shoppingService.editShoppingCart(any(), any(), any()))
                 .thenReturn(Mono.just(SHOPPING_CART));
 
         webTestClient.put().uri("/shopping/cart/{cartId}", UUID.randomUUID())
@@ -215,7 +319,7 @@ class ShoppingControllerTest {
 
     @Test
     void should_return_shopping_cart_with_added_products() {
-        when(shoppingService.addProductsToShoppingCart(any(), any()))
+        when(shoppingService.addProductsToShoppingCart(any(), any(), any()))
                 .thenReturn(Mono.just(SHOPPING_CART));
 
         webTestClient.patch()
@@ -229,7 +333,7 @@ class ShoppingControllerTest {
 
     @Test
     void should_return_error_id_add_products_returned_error() {
-        when(shoppingService.addProductsToShoppingCart(any(), any()))
+        when(shoppingService.addProductsToShoppingCart(any(), any(), any()))
                 .thenReturn(Mono.error(ERROR));
 
         webTestClient.patch()
@@ -241,7 +345,7 @@ class ShoppingControllerTest {
 
     @Test
     void should_return_bad_request_if_query_params_not_uuid() {
-        when(shoppingService.addProductsToShoppingCart(any(), any()))
+        when(shoppingService.addProductsToShoppingCart(any(), any(), any()))
                 .thenReturn(Mono.just(SHOPPING_CART));
 
         webTestClient.patch()
@@ -253,7 +357,7 @@ class ShoppingControllerTest {
 
     @Test
     void should_return_bad_request_if_add_products_path_variable_not_uuid() {
-        when(shoppingService.addProductsToShoppingCart(any(), any()))
+        when(shoppingService.addProductsToShoppingCart(any(), any(), any()))
                 .thenReturn(Mono.just(SHOPPING_CART));
 
         webTestClient.patch()
@@ -265,7 +369,7 @@ class ShoppingControllerTest {
 
     @Test
     void should_return_shopping_cart_with_removed_products() {
-        when(shoppingService.removeProductsFromShoppingCart(any(), any()))
+        when(shoppingService.removeProductsFromShoppingCart(any(), any(), any()))
                 .thenReturn(Mono.just(SHOPPING_CART));
 
         webTestClient.patch()
@@ -279,7 +383,7 @@ class ShoppingControllerTest {
 
     @Test
     void should_return_error_id_remove_products_returned_error() {
-        when(shoppingService.removeProductsFromShoppingCart(any(), any()))
+        when(shoppingService.removeProductsFromShoppingCart(any(), any(), any()))
                 .thenReturn(Mono.error(ERROR));
 
         webTestClient.patch()
@@ -291,7 +395,7 @@ class ShoppingControllerTest {
 
     @Test
     void should_return_bad_request_if_query_params_not_uuid_for_remove_products() {
-        when(shoppingService.removeProductsFromShoppingCart(any(), any()))
+        when(shoppingService.removeProductsFromShoppingCart(any(), any(), any()))
                 .thenReturn(Mono.just(SHOPPING_CART));
 
         webTestClient.patch()
@@ -303,7 +407,7 @@ class ShoppingControllerTest {
 
     @Test
     void should_return_bad_request_if_remove_products_path_variable_not_uuid() {
-        when(shoppingService.removeProductsFromShoppingCart(any(), any()))
+        when(shoppingService.removeProductsFromShoppingCart(any(), any(), any()))
                 .thenReturn(Mono.just(SHOPPING_CART));
 
         webTestClient.patch()
@@ -313,6 +417,56 @@ class ShoppingControllerTest {
                 .isBadRequest();
     }
 
+    @Test
+    void should_return_owner_carts_page() {
+        when(shoppingService.findShoppingCartsByOwner("owner-1", "abc", 10))
+                .thenReturn(Mono.just(new CartPage(List.of(SHOPPING_CART), "next")));
+
+        webTestClient.get()
+                .uri("/shopping/cart?owner=owner-1&cursor=abc&limit=10")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(CartPage.class)
+                .isEqualTo(new CartPage(List.of(SHOPPING_CART), "next"));
+    }
+
+    @Test
+    void should_return_bad_request_for_owner_page_limit_out_of_range() {
+        webTestClient.get()
+                .uri("/shopping/cart?owner=owner-1&limit=1000")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+
+        verify(shoppingService, never()).findShoppingCartsByOwner(any(), any(), anyInt());
+    }
+
+    @Test
+    void should_return_merged_shopping_cart() {
+        UUID targetId = UUID.randomUUID();
+        UUID sourceId = UUID.randomUUID();
+        when(shoppingService.mergeShoppingCarts(targetId, sourceId))
+                .thenReturn(Mono.just(SHOPPING_CART));
+
+        webTestClient.post()
+                .uri("/shopping/cart/{targetId}/merge/{sourceId}", targetId, sourceId)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(ShoppingCart.class)
+                .isEqualTo(SHOPPING_CART);
+    }
+
+    @Test
+    void should_return_bad_request_if_merge_source_not_uuid() {
+        webTestClient.post()
+                .uri("/shopping/cart/{targetId}/merge/{sourceId}", UUID.randomUUID(), NOT_UUID)
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
     @Test
     void should_return_empty_for_removed_cart() {
         when(shoppingService.deleteShoppingCart(any()))
@@ -0,0 +1,87 @@
+package com.example.shoppingservice.client;
+
+import com.example.shoppingservice.ProductDataProvider;
+import com.example.shoppingservice.model.Category;
+import com.example.shoppingservice.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogIndexTest {
+
+    @Test
+    void should_materialize_products_equal_to_catalog_entries() {
+        Product product = ProductDataProvider.getSimpleProduct();
+        product.setPrice(new BigDecimal("19.990"));
+        product.setCategories(List.of(Category.TOYS_GAMES, Category.BOOKS));
+        product.setCreatedAt(LocalDateTime.of(2023, 10, 19, 19, 0, 1, 123_456_789));
+
+        CatalogIndex index = CatalogIndex.of(List.of(product, ProductDataProvider.getSimpleProduct()));
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.get(product.getId())).isEqualTo(product);
+    }
+
+    @Test
+    void should_keep_null_fields_and_wide_prices() {
+        Product product = Product.builder()
+                .id(UUID.randomUUID())
+                .price(new BigDecimal("123456789012345678901234567890.5"))
+                .build();
+
+        CatalogIndex index = CatalogIndex.of(List.of(product));
+
+        assertThat(index.get(product.getId())).isEqualTo(product);
+    }
+
+    @Test
+    void should_find_only_known_products_once_in_catalog_order() {
+        List<Product> products = IntStream.range(0, 1_000)
+                .mapToObj(i -> ProductDataProvider.getSimpleProduct())
+                .toList();
+        CatalogIndex index = CatalogIndex.of(products);
+
+        List<Product> found = index.findAll(List.of(products.get(7).getId(), UUID.randomUUID(),
+                products.get(3).getId(), products.get(7).getId()));
+
+        assertThat(found).containsExactly(products.get(3), products.get(7));
+        assertThat(index.contains(UUID.randomUUID())).isFalse();
+        assertThat(index.indexOf(products.get(999).getId())).isEqualTo(999);
+    }
+
+    @Test
+    void should_skip_products_without_id_and_duplicates() {
+        Product product = ProductDataProvider.getSimpleProduct();
+        Product duplicate = ProductDataProvider.getSimpleProduct();
+        duplicate.setId(product.getId());
+
+        CatalogIndex index = CatalogIndex.of(List.of(product, duplicate, Product.builder().name("no id").build()));
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.get(product.getId())).isEqualTo(product);
+    }
+
+    @Test
+    void should_not_share_mutable_state_between_materialized_products_and_index() {
+        Product product = ProductDataProvider.getSimpleProduct();
+        CatalogIndex index = CatalogIndex.of(List.of(product));
+
+        Product materialized = index.get(product.getId());
+        materialized.getManufacturer().setName("changed");
+        materialized.getReviews().get(0).setRating(1);
+        materialized.getReviews().clear();
+        product.getManufacturer().setContact("changed");
+
+        Product reloaded = index.get(product.getId());
+        assertThat(reloaded.getManufacturer().getName()).isEqualTo("Manufacturer 1");
+        assertThat(reloaded.getManufacturer().getContact()).isEqualTo("test@address.com");
+        assertThat(reloaded.getReviews()).singleElement()
+                .satisfies(review -> assertThat(review.getRating()).isEqualTo(5));
+    }
+}
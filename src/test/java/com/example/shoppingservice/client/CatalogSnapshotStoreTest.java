@@ -0,0 +1,103 @@
+package com.example.shoppingservice.client;
+
+import com.example.shoppingservice.ProductDataProvider;
+import com.example.shoppingservice.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogSnapshotStoreTest {
+
+    @TempDir
+    private Path tempDir;
+    private ProductConfig config;
+    private CatalogSnapshotStore snapshotStore;
+
+    @BeforeEach
+    public void setUp() {
+        config = new ProductConfig();
+        config.setCatalogSnapshotPath(tempDir.resolve("catalog.snapshot").toString());
+        snapshotStore = new CatalogSnapshotStore(config);
+    }
+
+    @Test
+    void should_serve_lookups_from_written_snapshot() {
+        List<Product> products = IntStream.range(0, 100)
+                .mapToObj(i -> ProductDataProvider.getSimpleProduct())
+                .toList();
+        Product sparse = Product.builder()
+                .id(UUID.randomUUID())
+                .price(new BigDecimal("123456789012345678901234567890.5"))
+                .build();
+        snapshotStore.write(CatalogIndex.of(concat(products, sparse)), "\"v1\"");
+
+        Optional<MappedCatalog> snapshot = snapshotStore.open();
+
+        assertThat(snapshot).isPresent();
+        assertThat(snapshot.get().size()).isEqualTo(101);
+        assertThat(snapshot.get().version()).isEqualTo("\"v1\"");
+        assertThat(snapshot.get().get(products.get(42).getId())).isEqualTo(products.get(42));
+        assertThat(snapshot.get().get(sparse.getId())).isEqualTo(sparse);
+        assertThat(snapshot.get().findAll(List.of(products.get(5).getId(), UUID.randomUUID())))
+                .containsExactly(products.get(5));
+        assertThat(snapshot.get().productIds()).hasSize(101);
+    }
+
+    @Test
+    void should_reject_corrupt_snapshot() throws IOException {
+        snapshotStore.write(CatalogIndex.of(List.of(ProductDataProvider.getSimpleProduct())), "\"v1\"");
+        try (RandomAccessFile file = new RandomAccessFile(config.getCatalogSnapshotPath(), "rw")) {
+            file.seek(CatalogSnapshotStore.HEADER_SIZE + 3);
+            int value = file.read();
+            file.seek(CatalogSnapshotStore.HEADER_SIZE + 3);
+            file.write(value ^ 0xFF);
+        }
+
+        assertThat(snapshotStore.open()).isEmpty();
+    }
+
+    @Test
+    void should_reject_stale_snapshot() {
+        snapshotStore.write(CatalogIndex.of(List.of(ProductDataProvider.getSimpleProduct())), "\"v1\"");
+        config.setCatalogSnapshotMaxAge(Duration.ofMillis(-1));
+
+        assertThat(snapshotStore.open()).isEmpty();
+    }
+
+    @Test
+    void should_not_share_temp_file_between_concurrent_writes() throws IOException {
+        CatalogIndex index = CatalogIndex.of(IntStream.range(0, 1_000)
+                .mapToObj(i -> ProductDataProvider.getSimpleProduct())
+                .toList());
+
+        IntStream.range(0, 8).parallel().forEach(i -> snapshotStore.write(index, "\"v" + i + "\""));
+
+        assertThat(snapshotStore.open()).hasValueSatisfying(snapshot -> assertThat(snapshot.size()).isEqualTo(1_000));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files).containsExactly(tempDir.resolve("catalog.snapshot"));
+        }
+    }
+
+    @Test
+    void should_return_empty_when_snapshot_missing() {
+        assertThat(snapshotStore.open()).isEmpty();
+    }
+
+    private static List<Product> concat(final List<Product> products, final Product product) {
+        return Stream.concat(products.stream(), Stream.of(product)).toList();
+    }
+}
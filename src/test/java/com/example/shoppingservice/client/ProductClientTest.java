@@ -0,0 +1,232 @@
+package com.example.shoppingservice.client;
+
+import com.example.shoppingservice.ProductDataProvider;
+import com.example.shoppingservice.lifecycle.LifecycleConfig;
+import com.example.shoppingservice.lifecycle.PendingWorkTracker;
+import com.example.shoppingservice.model.Product;
+import com.example.shoppingservice.runtime.CpuBoundScheduler;
+import com.example.shoppingservice.runtime.RuntimeConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductClientTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+    private final Product first = ProductDataProvider.getSimpleProduct();
+    private final Product second = ProductDataProvider.getSimpleProduct();
+    private final Product added = ProductDataProvider.getSimpleProduct();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final AtomicInteger fullDownloads = new AtomicInteger();
+    private final AtomicInteger pageFailures = new AtomicInteger();
+    private volatile boolean deltaSupported = true;
+    private volatile String pageVersion = "\"v1\"";
+    private volatile String nextPageVersion;
+    private DisposableServer searchService;
+    private ProductConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private RuntimeConfig runtimeConfig;
+    private ProductClient productClient;
+
+    @BeforeEach
+    public void setUp() {
+        searchService = HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .get("/search/products", this::products)
+                        .get("/search/products/changes", this::changes))
+                .bindNow();
+        config = new ProductConfig();
+        config.setUrl("http://localhost:" + searchService.port() + "/search");
+        config.setCatalogTtl(Duration.ZERO);
+        meterRegistry = new SimpleMeterRegistry();
+        runtimeConfig = new RuntimeConfig();
+        productClient = newProductClient();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        searchService.disposeNow();
+    }
+
+    @Test
+    void should_keep_current_catalog_when_not_modified() {
+        productClient.refreshCatalog().block();
+        productClient.refreshCatalog().block();
+
+        assertThat(fullDownloads).hasValue(1);
+        assertThat(requests).containsExactly("/search/products none", "/search/products \"v1\"");
+        assertThat(meterRegistry.counter("shopping.catalog.refresh", "outcome", "not_modified").count()).isEqualTo(1);
+        productClient.getProducts(List.of(first.getId(), second.getId()))
+                .as(StepVerifier::create)
+                .expectNext(first, second)
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void should_issue_new_request_for_each_refresh_after_previous_completed() {
+        for (int i = 0; i < 20; i++) {
+            productClient.refreshCatalog().block();
+        }
+
+        assertThat(requests).hasSize(20);
+        assertThat(fullDownloads).hasValue(1);
+    }
+
+    @Test
+    void should_merge_delta_into_current_catalog() {
+        config.setDeltaRefresh(true);
+
+        productClient.refreshCatalog().block();
+        productClient.refreshCatalog().block();
+
+        assertThat(fullDownloads).hasValue(1);
+        assertThat(requests).containsExactly("/search/products none", "/search/products/changes \"v1\"");
+        productClient.getProducts(List.of(first.getId(), second.getId(), added.getId()))
+                .as(StepVerifier::create)
+                .expectNext(second, added)
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void should_fall_back_to_conditional_fetch_when_delta_unsupported() {
+        config.setDeltaRefresh(true);
+        deltaSupported = false;
+
+        productClient.refreshCatalog().block();
+        productClient.refreshCatalog().block();
+
+        assertThat(fullDownloads).hasValue(1);
+        assertThat(requests).containsExactly("/search/products none", "/search/products/changes \"v1\"",
+                "/search/products \"v1\"");
+    }
+
+    @Test
+    void should_fetch_pages_in_order_and_retry_failed_page() {
+        config.setPagedFetch(true);
+        config.setPageSize(1);
+        config.setPageRetryBackoff(Duration.ofMillis(1));
+        pageFailures.set(1);
+
+        productClient.getAllProducts()
+                .as(StepVerifier::create)
+                .expectNext(first, second, added)
+                .expectComplete()
+                .verify();
+
+        assertThat(requests).filteredOn(path -> path.contains("page=1")).hasSize(2);
+        assertThat(requests).filteredOn(path -> path.contains("page=0")).hasSize(1);
+        assertThat(meterRegistry.counter("shopping.catalog.fetch.page.retries").count()).isEqualTo(1);
+        assertThat(meterRegistry.timer("shopping.catalog.fetch.page.latency").count()).isEqualTo(3);
+        assertThat(meterRegistry.summary("shopping.catalog.fetch.page.products").totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    void should_restart_paged_fetch_when_catalog_changes_between_pages() {
+        config.setPagedFetch(true);
+        config.setPageSize(1);
+        config.setPageConcurrency(1);
+        nextPageVersion = "\"v2\"";
+
+        productClient.refreshCatalog().block();
+
+        assertThat(requests).filteredOn(path -> path.contains("page=0")).hasSize(2);
+        assertThat(meterRegistry.counter("shopping.catalog.fetch.restarts").count()).isEqualTo(1);
+        assertThat(productClient.getProducts(List.of(first.getId(), second.getId(), added.getId())).collectList().block())
+                .containsExactly(first, second, added);
+    }
+
+    @Test
+    void should_decode_and_index_catalog_on_cpu_scheduler_when_offloading() {
+        runtimeConfig.setOffloadCpuWork(true);
+        config.setPagedFetch(true);
+        config.setPageSize(1);
+        productClient = newProductClient();
+
+        productClient.refreshCatalog().block();
+
+        productClient.getProducts(List.of(first.getId(), added.getId()))
+                .as(StepVerifier::create)
+                .expectNext(first, added)
+                .expectComplete()
+                .verify();
+    }
+
+    private Mono<Void> products(final HttpServerRequest request, final HttpServerResponse response) {
+        List<String> page = new QueryStringDecoder(request.uri()).parameters().get("page");
+        if (page != null) {
+            return productPage(request, response, Integer.parseInt(page.get(0)));
+        }
+        String ifNoneMatch = request.requestHeaders().get("If-None-Match");
+        requests.add(request.fullPath() + " " + (ifNoneMatch == null ? "none" : ifNoneMatch));
+        if ("\"v1\"".equals(ifNoneMatch)) {
+            return response.status(304).send();
+        }
+        fullDownloads.incrementAndGet();
+        return json(response.header("ETag", "\"v1\""), List.of(first, second));
+    }
+
+    private Mono<Void> productPage(final HttpServerRequest request, final HttpServerResponse response, final int page) {
+        requests.add(request.uri());
+        if (page == 1 && pageFailures.getAndDecrement() > 0) {
+            return response.status(503).send();
+        }
+        if (page == 1 && nextPageVersion != null) {
+            pageVersion = nextPageVersion;
+            nextPageVersion = null;
+        }
+        List<Product> catalog = List.of(first, second, added);
+        return json(response.header("ETag", pageVersion), new ProductPage(List.of(catalog.get(page)), page, catalog.size()));
+    }
+
+    private Mono<Void> changes(final HttpServerRequest request, final HttpServerResponse response) {
+        String since = new QueryStringDecoder(request.uri()).parameters().get("since").get(0);
+        requests.add(request.fullPath() + " " + since);
+        if (!deltaSupported) {
+            return response.status(404).send();
+        }
+        return json(response, Map.of(
+                "version", "\"v2\"",
+                "upserted", List.of(added),
+                "removed", List.of(first.getId())));
+    }
+
+    private ProductClient newProductClient() {
+        return new ProductClient(null, config, new CatalogSnapshotStore(config), meterRegistry,
+                new PendingWorkTracker(new LifecycleConfig()), new CpuBoundScheduler(runtimeConfig), OBJECT_MAPPER,
+                ObservationRegistry.NOOP);
+    }
+
+    private static Mono<Void> json(final HttpServerResponse response, final Object body) {
+        try {
+            return response.header("Content-Type", "application/json")
+                    .sendString(Mono.just(OBJECT_MAPPER.writeValueAsString(body)))
+                    .then();
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.shoppingservice.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductIdBloomFilterTest {
+
+    @Test
+    void should_contain_every_inserted_id() {
+        List<UUID> productIds = IntStream.range(0, 1_000).mapToObj(i -> UUID.randomUUID()).toList();
+
+        ProductIdBloomFilter filter = ProductIdBloomFilter.of(productIds, 0.01);
+
+        assertThat(productIds).allMatch(filter::mightContain);
+        assertThat(filter.entries()).isEqualTo(1_000);
+    }
+
+    @Test
+    void should_keep_false_positive_rate_close_to_target() {
+        List<UUID> productIds = IntStream.range(0, 10_000).mapToObj(i -> UUID.randomUUID()).toList();
+        ProductIdBloomFilter filter = ProductIdBloomFilter.of(productIds, 0.01);
+
+        long falsePositives = IntStream.range(0, 10_000)
+                .mapToObj(i -> UUID.randomUUID())
+                .filter(filter::mightContain)
+                .count();
+
+        assertThat(falsePositives).isLessThan(300);
+        assertThat(filter.expectedFalsePositiveRate()).isLessThan(0.02);
+        assertThat(filter.memoryBytes()).isLessThan(16 * 1024);
+    }
+
+    @Test
+    void should_reject_everything_when_empty() {
+        ProductIdBloomFilter filter = ProductIdBloomFilter.of(List.of(), 0.01);
+
+        assertThat(filter.mightContain(UUID.randomUUID())).isFalse();
+    }
+}
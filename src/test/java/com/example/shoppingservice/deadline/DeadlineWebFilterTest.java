@@ -0,0 +1,104 @@
+package com.example.shoppingservice.deadline;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeadlineWebFilterTest {
+
+    private DeadlineConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private DeadlineWebFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        config = new DeadlineConfig();
+        config.setEndpointTimeouts(Map.of("GET", Duration.ofSeconds(2)));
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new DeadlineWebFilter(config, meterRegistry);
+    }
+
+    @Test
+    void should_cancel_request_when_header_deadline_passes() {
+        AtomicReference<Boolean> cancelled = new AtomicReference<>(false);
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/shopping/cart")
+                .header("X-Request-Timeout", "50"));
+
+        filter.filter(exchange, ignored -> Mono.delay(Duration.ofSeconds(5)).doOnCancel(() -> cancelled.set(true)).then())
+                .as(StepVerifier::create)
+                .expectErrorSatisfies(err -> assertThat(err).isInstanceOf(DeadlineExceededException.class)
+                        .extracting(e -> ((ResponseStatusException) e).getStatusCode())
+                        .isEqualTo(HttpStatus.GATEWAY_TIMEOUT))
+                .verify(Duration.ofSeconds(2));
+
+        assertThat(cancelled).hasValue(true);
+        assertThat(meterRegistry.counter("shopping.request.deadline.expired", "method", "POST", "stage", "request").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void should_use_endpoint_default_when_header_missing() {
+        AtomicReference<Duration> remaining = new AtomicReference<>();
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/shopping/cart/1"));
+
+        filter.filter(exchange, ignored -> Mono.deferContextual(context -> {
+                    remaining.set(Deadline.from(context).orElseThrow().remaining());
+                    return Mono.empty();
+                }))
+                .as(StepVerifier::create)
+                .verifyComplete();
+
+        assertThat(remaining.get()).isGreaterThan(Duration.ofSeconds(1)).isLessThanOrEqualTo(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void should_record_stage_of_inner_deadline() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/shopping/cart/1")
+                .header("X-Request-Timeout", "50"));
+
+        StepVerifier.withVirtualTime(() -> filter.filter(exchange, ignored -> Deadline.bound(Mono.never(), "mongo")))
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(50).plus(config.getRequestGrace()))
+                .expectErrorSatisfies(err -> assertThat(((DeadlineExceededException) err).getStage()).isEqualTo("mongo"))
+                .verify(Duration.ofSeconds(2));
+
+        assertThat(meterRegistry.counter("shopping.request.deadline.expired", "method", "GET", "stage", "mongo").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void should_reject_invalid_header() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/shopping/cart/1")
+                .header("X-Request-Timeout", "soon"));
+
+        filter.filter(exchange, ignored -> Mono.empty())
+                .as(StepVerifier::create)
+                .expectErrorSatisfies(err -> assertThat(((ResponseStatusException) err).getStatusCode())
+                        .isEqualTo(HttpStatus.BAD_REQUEST))
+                .verify();
+    }
+
+    @Test
+    void should_ignore_other_paths() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/shopping/analytics/products/top"));
+
+        filter.filter(exchange, ignored -> Mono.deferContextual(context -> {
+                    assertThat(Deadline.from(context)).isEmpty();
+                    return Mono.empty();
+                }))
+                .as(StepVerifier::create)
+                .verifyComplete();
+    }
+}
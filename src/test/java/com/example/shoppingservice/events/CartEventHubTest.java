@@ -0,0 +1,87 @@
+package com.example.shoppingservice.events;
+
+import com.example.shoppingservice.model.ShoppingCart;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CartEventHubTest {
+
+    private final UUID cartId = UUID.randomUUID();
+    private CartEventConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private CartEventHub hub;
+
+    @BeforeEach
+    public void setUp() {
+        config = new CartEventConfig();
+        meterRegistry = new SimpleMeterRegistry();
+        hub = new CartEventHub(config, meterRegistry);
+    }
+
+    @Test
+    void should_emit_current_state_then_live_changes_until_deleted() {
+        hub.subscribe(cartId, null, Mono.just(cart(1L)))
+                .as(StepVerifier::create)
+                .assertNext(event -> assertThat(event.version()).isEqualTo(1L))
+                .then(() -> hub.publish(CartEvent.updated(cart(2L))))
+                .assertNext(event -> assertThat(event.version()).isEqualTo(2L))
+                .then(() -> hub.publish(CartEvent.deleted(cartId)))
+                .assertNext(event -> assertThat(event.type()).isEqualTo(CartEvent.Type.DELETED))
+                .verifyComplete();
+
+        assertThat(hub.channelCount()).isZero();
+    }
+
+    @Test
+    void should_skip_versions_already_seen_when_resuming() {
+        hub.subscribe(cartId, 3L, Mono.just(cart(3L)))
+                .as(StepVerifier::create)
+                .then(() -> {
+                    hub.publish(CartEvent.updated(cart(2L)));
+                    hub.publish(CartEvent.updated(cart(4L)));
+                })
+                .assertNext(event -> assertThat(event.version()).isEqualTo(4L))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void should_drop_oldest_events_for_slow_subscriber() {
+        config.setSubscriberBuffer(2);
+
+        hub.subscribe(cartId, null, Mono.empty())
+                .as(subscription -> StepVerifier.create(subscription, 0))
+                .then(() -> {
+                    for (long version = 1; version <= 5; version++) {
+                        hub.publish(CartEvent.updated(cart(version)));
+                    }
+                })
+                .thenRequest(2)
+                .assertNext(event -> assertThat(event.version()).isEqualTo(4L))
+                .assertNext(event -> assertThat(event.version()).isEqualTo(5L))
+                .thenCancel()
+                .verify();
+
+        assertThat(meterRegistry.counter("shopping.cart.events.dropped").count()).isEqualTo(3);
+    }
+
+    @Test
+    void should_not_keep_channels_without_subscribers() {
+        hub.publish(CartEvent.updated(cart(1L)));
+
+        assertThat(hub.channelCount()).isZero();
+    }
+
+    private ShoppingCart cart(final long version) {
+        return new ShoppingCart(cartId, List.of(), LocalDateTime.now(), version);
+    }
+}
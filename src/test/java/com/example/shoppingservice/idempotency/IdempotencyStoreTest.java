@@ -0,0 +1,171 @@
+package com.example.shoppingservice.idempotency;
+
+import com.example.shoppingservice.model.IdempotencyRecord;
+import com.example.shoppingservice.model.ShoppingCart;
+import com.mongodb.client.result.DeleteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyStoreTest {
+
+    private final ShoppingCart cart = new ShoppingCart(UUID.randomUUID(), List.of(), null);
+    private final AtomicInteger executions = new AtomicInteger();
+    private IdempotencyConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotencyStore store;
+
+    @BeforeEach
+    public void setUp() {
+        config = new IdempotencyConfig();
+        meterRegistry = new SimpleMeterRegistry();
+        store = new IdempotencyStore(config, null, meterRegistry);
+    }
+
+    @Test
+    void should_replay_stored_response_for_repeated_key() {
+        store.execute("key", "create", this::work).block();
+
+        store.execute("key", "create", this::work)
+                .as(StepVerifier::create)
+                .expectNext(cart)
+                .verifyComplete();
+
+        assertThat(executions).hasValue(1);
+        assertThat(meterRegistry.counter("shopping.idempotency.requests", "outcome", "duplicate").count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_join_in_flight_duplicate() {
+        Sinks.One<ShoppingCart> result = Sinks.one();
+        AtomicInteger started = new AtomicInteger();
+
+        Mono<ShoppingCart> first = store.execute("key", "create", () -> {
+            started.incrementAndGet();
+            return result.asMono();
+        });
+        Mono<ShoppingCart> second = store.execute("key", "create", () -> {
+            started.incrementAndGet();
+            return result.asMono();
+        });
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> result.tryEmitValue(cart))
+                .assertNext(tuple -> assertThat(tuple.getT1()).isSameAs(tuple.getT2()))
+                .verifyComplete();
+        assertThat(started).hasValue(1);
+    }
+
+    @Test
+    void should_reject_key_reused_for_different_request() {
+        store.execute("key", "create", this::work).block();
+
+        store.execute("key", "edit", this::work)
+                .as(StepVerifier::create)
+                .expectErrorSatisfies(err -> assertThat(((ResponseStatusException) err).getStatusCode())
+                        .isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY))
+                .verify();
+    }
+
+    @Test
+    void should_forget_failed_requests() {
+        store.execute("key", "create", () -> Mono.error(new IllegalStateException("boom")))
+                .as(StepVerifier::create)
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        store.execute("key", "create", this::work)
+                .as(StepVerifier::create)
+                .expectNext(cart)
+                .verifyComplete();
+    }
+
+    @Test
+    void should_expire_and_bound_entries() {
+        config.setTtl(Duration.ZERO);
+        store.execute("key", "create", this::work).block();
+        store.execute("key", "create", this::work).block();
+
+        assertThat(executions).hasValue(2);
+
+        config.setTtl(Duration.ofMinutes(1));
+        config.setMaxEntries(2);
+        for (int i = 0; i < 5; i++) {
+            store.execute("key-" + i, "create", this::work).block();
+        }
+
+        assertThat(store.size()).isEqualTo(2);
+    }
+
+    @Test
+    void should_take_over_claim_whose_lease_expired() {
+        ReactiveMongoTemplate mongoTemplate = mock(ReactiveMongoTemplate.class);
+        config.setMongoBacked(true);
+        store = new IdempotencyStore(config, mongoTemplate, meterRegistry);
+        IdempotencyRecord abandoned = IdempotencyRecord.builder()
+                .id("key")
+                .fingerprint("create")
+                .claimExpiresAt(Instant.now().minusSeconds(1))
+                .build();
+        when(mongoTemplate.insert(any(IdempotencyRecord.class))).thenReturn(Mono.error(new DuplicateKeyException("taken")));
+        when(mongoTemplate.findById("key", IdempotencyRecord.class)).thenReturn(Mono.just(abandoned));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(IdempotencyRecord.class)))
+                .thenReturn(Mono.just(abandoned));
+        when(mongoTemplate.save(any(IdempotencyRecord.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        store.execute("key", "create", this::work)
+                .as(StepVerifier::create)
+                .expectNext(cart)
+                .verifyComplete();
+
+        assertThat(executions).hasValue(1);
+        assertThat(abandoned.isCompleted()).isTrue();
+    }
+
+    @Test
+    void should_release_claim_when_cancelled() {
+        ReactiveMongoTemplate mongoTemplate = mock(ReactiveMongoTemplate.class);
+        config.setMongoBacked(true);
+        store = new IdempotencyStore(config, mongoTemplate, meterRegistry);
+        when(mongoTemplate.insert(any(IdempotencyRecord.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mongoTemplate.remove(any(Query.class), eq(IdempotencyRecord.class))).thenReturn(Mono.just(DeleteResult.acknowledged(1)));
+
+        store.execute("key", "create", Mono::never)
+                .as(StepVerifier::create)
+                .expectSubscription()
+                .thenCancel()
+                .verify();
+
+        verify(mongoTemplate).remove(any(Query.class), eq(IdempotencyRecord.class));
+    }
+
+    private Mono<ShoppingCart> work() {
+        return Mono.fromSupplier(() -> {
+            executions.incrementAndGet();
+            return cart;
+        });
+    }
+}
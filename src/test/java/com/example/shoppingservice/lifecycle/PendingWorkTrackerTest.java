@@ -0,0 +1,75 @@
+package com.example.shoppingservice.lifecycle;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PendingWorkTrackerTest {
+
+    private LifecycleConfig config;
+    private PendingWorkTracker tracker;
+
+    @BeforeEach
+    public void setUp() {
+        config = new LifecycleConfig();
+        config.setDrainTimeout(Duration.ofMillis(50));
+        tracker = new PendingWorkTracker(config);
+    }
+
+    @Test
+    void should_count_work_until_it_terminates() {
+        Sinks.One<String> result = Sinks.one();
+        tracker.track(result.asMono()).subscribe();
+
+        assertThat(tracker.pending()).isEqualTo(1);
+
+        result.tryEmitValue("done");
+
+        assertThat(tracker.pending()).isZero();
+    }
+
+    @Test
+    void should_not_count_work_before_subscription() {
+        tracker.track(Mono.never());
+
+        assertThat(tracker.pending()).isZero();
+    }
+
+    @Test
+    void should_wait_for_pending_work_on_stop() throws InterruptedException {
+        config.setDrainTimeout(Duration.ofSeconds(5));
+        tracker.track(Mono.delay(Duration.ofMillis(100)).then()).subscribe();
+
+        tracker.stop();
+
+        assertThat(tracker.pending()).isZero();
+        assertThat(tracker.awaitDrained(0, TimeUnit.MILLISECONDS)).isTrue();
+    }
+
+    @Test
+    void should_give_up_after_drain_deadline() throws InterruptedException {
+        tracker.track(Mono.never()).subscribe();
+
+        tracker.stop();
+
+        assertThat(tracker.pending()).isEqualTo(1);
+        assertThat(tracker.awaitDrained(10, TimeUnit.MILLISECONDS)).isFalse();
+    }
+
+    @Test
+    void should_stop_after_graceful_shutdown_and_before_web_server() {
+        int webServerStartStopPhase = SmartLifecycle.DEFAULT_PHASE - 2048;
+
+        assertThat(tracker.getPhase())
+                .isLessThan(WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE)
+                .isGreaterThan(webServerStartStopPhase);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.shoppingservice.profiling;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FlightRecorderServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private ProfilingConfig config;
+    private FlightRecorderService flightRecorderService;
+
+    @BeforeEach
+    public void setUp() {
+        config = new ProfilingConfig();
+        config.setDirectory(directory.toString());
+        config.setMaxDuration(Duration.ofSeconds(10));
+        flightRecorderService = new FlightRecorderService(config);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        flightRecorderService.closeAll();
+    }
+
+    @Test
+    void should_cap_duration_and_allow_single_active_recording() {
+        RecordingInfo info = flightRecorderService.start(EnumSet.of(ProfilingEvent.CPU), Duration.ofHours(1));
+
+        assertThat(info.duration()).isEqualTo(Duration.ofSeconds(10));
+        assertThat(info.state()).isEqualTo("RUNNING");
+        assertThatThrownBy(() -> flightRecorderService.start(EnumSet.of(ProfilingEvent.LOCKS), null))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void should_dump_recording_and_summarize_allocation_sites() {
+        RecordingInfo info = flightRecorderService.start(EnumSet.of(ProfilingEvent.CPU, ProfilingEvent.ALLOCATION), null);
+        List<byte[]> retained = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            retained.add(new byte[16 * 1024]);
+        }
+
+        flightRecorderService.stop(info.id());
+        Path file = flightRecorderService.dump(info.id());
+        RecordingSummary summary = flightRecorderService.summarize(info.id());
+
+        assertThat(file).exists();
+        assertThat(retained).hasSize(2_000);
+        assertThat(summary.allocationSamples()).isPositive();
+        assertThat(summary.allocationSites()).isNotEmpty();
+        assertThat(flightRecorderService.list()).extracting(RecordingInfo::state).containsExactly("STOPPED");
+    }
+
+    @Test
+    void should_refuse_to_summarize_running_recording() {
+        RecordingInfo info = flightRecorderService.start(EnumSet.of(ProfilingEvent.CPU), null);
+
+        assertThatThrownBy(() -> flightRecorderService.summarize(info.id()))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        assertThat(flightRecorderService.list()).extracting(RecordingInfo::state).containsExactly("RUNNING");
+    }
+
+    @Test
+    void should_evict_oldest_stopped_recordings() {
+        config.setMaxRetainedRecordings(2);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            RecordingInfo info = flightRecorderService.start(EnumSet.of(ProfilingEvent.CPU), null);
+            flightRecorderService.stop(info.id());
+            flightRecorderService.dump(info.id());
+            ids.add(info.id());
+        }
+
+        assertThat(flightRecorderService.list()).extracting(RecordingInfo::id).containsExactly(ids.get(2), ids.get(3));
+        assertThat(directory.resolve(FlightRecorderService.fileName(ids.get(0)))).doesNotExist();
+    }
+
+    @Test
+    void should_delete_recording_file() throws Exception {
+        RecordingInfo info = flightRecorderService.start(EnumSet.of(ProfilingEvent.CPU), null);
+        flightRecorderService.stop(info.id());
+        Path file = flightRecorderService.dump(info.id());
+
+        flightRecorderService.delete(info.id());
+
+        assertThat(Files.exists(file)).isFalse();
+        assertThat(flightRecorderService.list()).isEmpty();
+    }
+}
@@ -1,21 +1,37 @@
 package com.example.shoppingservice.repository;
 
+import com.example.shoppingservice.model.CartCursor;
+import com.example.shoppingservice.model.Product;
 import com.example.shoppingservice.model.ShoppingCart;
+import com.mongodb.ExplainVerbosity;
+import org.bson.Document;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 @DataMongoTest
 class ShoppingCartRepositoryTestIT {
 
     @Autowired
     private ShoppingCartRepository shoppingCartRepository;
 
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
     @Test
     void should_find_cart_by_id() {
         UUID cartId = UUID.randomUUID();
@@ -47,4 +63,123 @@ class ShoppingCartRepositoryTestIT {
                 .verify();
     }
 
-}
\ No newline at end of file
+    @Test
+    void should_find_ids_of_carts_inserted_before() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        ShoppingCart old = new ShoppingCart(UUID.randomUUID(), Collections.emptyList(), now.minusDays(30));
+        ShoppingCart recent = new ShoppingCart(UUID.randomUUID(), Collections.emptyList(), now);
+        shoppingCartRepository.saveAll(List.of(old, recent)).blockLast();
+
+        shoppingCartRepository.findIdsByInsertDateTimeBefore(now.minusDays(29))
+                .collectList()
+                .as(StepVerifier::create)
+                .assertNext(ids -> assertThat(ids).contains(old.getId()).doesNotContain(recent.getId()))
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void should_append_only_missing_products_in_one_update() {
+        Product present = Product.builder().id(UUID.randomUUID()).name("present").build();
+        Product missing = Product.builder().id(UUID.randomUUID()).name("$missing").build();
+        ShoppingCart target = shoppingCartRepository.save(new ShoppingCart(UUID.randomUUID(), List.of(present), LocalDateTime.now())).block();
+
+        shoppingCartRepository.appendMissingProducts(target.getId(), List.of(present, missing))
+                .as(StepVerifier::create)
+                .assertNext(before -> assertThat(before.getProducts()).extracting(Product::getId).containsExactly(present.getId()))
+                .expectComplete()
+                .verify();
+
+        shoppingCartRepository.findShoppingCartById(target.getId())
+                .as(StepVerifier::create)
+                .assertNext(after -> {
+                    assertThat(after.getProducts()).extracting(Product::getName).containsExactly("present", "$missing");
+                    assertThat(after.getVersion()).isEqualTo(target.getVersion() + 1);
+                })
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void should_delete_only_carts_whose_version_is_unchanged() {
+        ShoppingCart unchanged = shoppingCartRepository.save(new ShoppingCart(UUID.randomUUID(), List.of(), LocalDateTime.now())).block();
+        ShoppingCart snapshot = shoppingCartRepository.save(new ShoppingCart(UUID.randomUUID(), List.of(), LocalDateTime.now())).block();
+        ShoppingCart changed = new ShoppingCart(snapshot.getId(), List.of(), snapshot.getInsertDateTime(), snapshot.getVersion());
+        shoppingCartRepository.save(changed).block();
+
+        StepVerifier.create(shoppingCartRepository.deleteUnchanged(List.of(unchanged, snapshot)))
+                .expectNext(1L)
+                .verifyComplete();
+        StepVerifier.create(shoppingCartRepository.findShoppingCartById(snapshot.getId()))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void should_initialise_version_of_legacy_cart_once() {
+        UUID cartId = UUID.randomUUID();
+        mongoTemplate.insert(new Document("_id", cartId).append("products", List.of()),
+                mongoTemplate.getCollectionName(ShoppingCart.class)).block();
+
+        StepVerifier.create(shoppingCartRepository.initialiseVersion(cartId))
+                .expectNext(true)
+                .verifyComplete();
+        StepVerifier.create(shoppingCartRepository.initialiseVersion(cartId))
+                .expectNext(false)
+                .verifyComplete();
+
+        shoppingCartRepository.findShoppingCartById(cartId)
+                .as(StepVerifier::create)
+                .assertNext(cart -> assertThat(cart.getVersion()).isZero())
+                .verifyComplete();
+    }
+
+    @Test
+    void should_page_owner_carts_by_cursor_using_owner_index() {
+        String owner = "owner-" + UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        List<ShoppingCart> carts = Flux.range(0, 5)
+                .map(i -> new ShoppingCart(UUID.randomUUID(), Collections.emptyList(), now.minusMinutes(i), null, owner))
+                .concatWith(Flux.range(0, 20)
+                        .map(i -> new ShoppingCart(UUID.randomUUID(), Collections.emptyList(), now, null, "other-" + i)))
+                .flatMap(shoppingCartRepository::save)
+                .filter(cart -> owner.equals(cart.getOwner()))
+                .collectSortedList((left, right) -> right.getInsertDateTime().compareTo(left.getInsertDateTime()))
+                .block();
+        ensureIndexes();
+
+        List<ShoppingCart> firstPage = shoppingCartRepository.findShoppingCartsByOwner(owner, null, 2).collectList().block();
+        CartCursor cursor = CartCursor.after(firstPage.get(1));
+
+        shoppingCartRepository.findShoppingCartsByOwner(owner, cursor, 2)
+                .map(ShoppingCart::getId)
+                .as(StepVerifier::create)
+                .expectNext(carts.get(2).getId(), carts.get(3).getId())
+                .expectComplete()
+                .verify();
+
+        Document explain = explain(ShoppingCartRepositoryCustomImpl.ownerQuery(owner, cursor, 2));
+        String winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class).toJson();
+        Document executionStats = explain.get("executionStats", Document.class);
+        assertThat(winningPlan).contains("IXSCAN", "owner_insertDateTime").doesNotContain("COLLSCAN", "\"SORT\"");
+        assertThat(executionStats.get("totalKeysExamined", Number.class).longValue()).isLessThanOrEqualTo(3);
+        assertThat(executionStats.get("totalDocsExamined", Number.class).longValue()).isLessThanOrEqualTo(3);
+    }
+
+    private void ensureIndexes() {
+        IndexResolver.create(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(ShoppingCart.class)
+                .forEach(index -> mongoTemplate.indexOps(ShoppingCart.class).ensureIndex(index).block());
+    }
+
+    private Document explain(final Query query) {
+        Document filter = (Document) mongoTemplate.getConverter().convertToMongoType(query.getQueryObject());
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(ShoppingCart.class))
+                .flatMap(collection -> Mono.from(collection.find(filter)
+                        .sort(query.getSortObject())
+                        .limit(query.getLimit())
+                        .explain(ExplainVerbosity.EXECUTION_STATS)))
+                .block();
+    }
+
+}
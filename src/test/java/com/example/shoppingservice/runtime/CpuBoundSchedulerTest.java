@@ -0,0 +1,24 @@
+package com.example.shoppingservice.runtime;
+
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CpuBoundSchedulerTest {
+
+    @Test
+    void should_keep_offloading_mode_chosen_at_construction() {
+        RuntimeConfig config = new RuntimeConfig();
+        config.setOffloadCpuWork(false);
+        CpuBoundScheduler cpuBoundScheduler = new CpuBoundScheduler(config);
+        config.setOffloadCpuWork(true);
+
+        assertThat(cpuBoundScheduler.isOffloading()).isFalse();
+        cpuBoundScheduler.run(() -> Thread.currentThread().getName())
+                .as(StepVerifier::create)
+                .expectNext(Thread.currentThread().getName())
+                .verifyComplete();
+        cpuBoundScheduler.dispose();
+    }
+}
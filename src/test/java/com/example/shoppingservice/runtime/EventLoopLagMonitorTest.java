@@ -0,0 +1,93 @@
+package com.example.shoppingservice.runtime;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.client.reactive.ReactorResourceFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventLoopLagMonitorTest {
+
+    private final EventLoopGroup eventLoops = new DefaultEventLoopGroup(1);
+    private final EventLoopGroup tcpLoops = new DefaultEventLoopGroup(1);
+    private SimpleMeterRegistry meterRegistry;
+    private EventLoopLagMonitor monitor;
+
+    @BeforeEach
+    public void setUp() {
+        RuntimeConfig config = new RuntimeConfig();
+        config.setLagProbeInterval(Duration.ofHours(1));
+        config.setBlockedThreshold(Duration.ofMillis(50));
+        meterRegistry = new SimpleMeterRegistry();
+        monitor = new EventLoopLagMonitor(config, meterRegistry, new StaticListableBeanFactory().getBeanProvider(ReactorResourceFactory.class));
+        monitor.start(eventLoops, tcpLoops, eventLoops);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        monitor.stop();
+        eventLoops.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+        tcpLoops.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    void should_report_blocked_event_loop_and_record_lag() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        eventLoops.execute(() -> {
+            while (release.getCount() > 0) {
+                Thread.onSpinWait();
+            }
+        });
+
+        monitor.tick();
+        Thread.sleep(100);
+        monitor.tick();
+        monitor.tick();
+
+        assertThat(meterRegistry.counter("shopping.eventloop.blocked").count()).isEqualTo(1);
+
+        release.countDown();
+        awaitLagSample();
+
+        assertThat(meterRegistry.timer("shopping.eventloop.lag", "loop", "0").totalTime(TimeUnit.MILLISECONDS))
+                .isGreaterThanOrEqualTo(100);
+    }
+
+    @Test
+    void should_not_report_responsive_event_loop() throws InterruptedException {
+        monitor.tick();
+        awaitLagSample();
+        monitor.tick();
+
+        assertThat(meterRegistry.counter("shopping.eventloop.blocked").count()).isZero();
+    }
+
+    @Test
+    void should_probe_every_server_loop_group_once() throws InterruptedException {
+        monitor.tick();
+        awaitLagSample("1");
+
+        assertThat(meterRegistry.find("shopping.eventloop.lag").timers()).hasSize(2);
+        assertThat(meterRegistry.timer("shopping.eventloop.lag", "loop", "1").count()).isEqualTo(1);
+    }
+
+    private void awaitLagSample() throws InterruptedException {
+        awaitLagSample("0");
+    }
+
+    private void awaitLagSample(final String loop) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (meterRegistry.timer("shopping.eventloop.lag", "loop", loop).count() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
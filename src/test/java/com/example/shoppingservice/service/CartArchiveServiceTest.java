@@ -0,0 +1,146 @@
+package com.example.shoppingservice.service;
+
+import com.example.shoppingservice.ProductDataProvider;
+import com.example.shoppingservice.events.CartEvent;
+import com.example.shoppingservice.events.CartEventHub;
+import com.example.shoppingservice.model.ArchivedShoppingCart;
+import com.example.shoppingservice.model.CartCursor;
+import com.example.shoppingservice.model.Product;
+import com.example.shoppingservice.model.ShoppingCart;
+import com.example.shoppingservice.repository.ArchivedShoppingCartRepository;
+import com.example.shoppingservice.repository.ShoppingCartRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CartArchiveServiceTest {
+
+    @Mock
+    private ShoppingCartRepository shoppingCartRepository;
+    @Mock
+    private ArchivedShoppingCartRepository archivedShoppingCartRepository;
+    @Mock
+    private CartEventHub cartEventHub;
+    private CartArchiveService cartArchiveService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        CartCleanupConfig config = new CartCleanupConfig();
+        config.setBatchSize(2);
+        cartArchiveService = new CartArchiveService(shoppingCartRepository, archivedShoppingCartRepository, config, cartEventHub);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_archive_compact_carts_in_batches_and_delete_them() {
+        Product product = ProductDataProvider.getSimpleProduct();
+        List<ShoppingCart> carts = List.of(
+                new ShoppingCart(UUID.randomUUID(), List.of(product), LocalDateTime.now().minusHours(1)),
+                new ShoppingCart(UUID.randomUUID(), Collections.emptyList(), LocalDateTime.now().minusHours(1)),
+                new ShoppingCart(UUID.randomUUID(), null, LocalDateTime.now().minusHours(1)));
+
+        when(shoppingCartRepository.findByInsertDateTimeBefore(any())).thenReturn(Flux.fromIterable(carts));
+        when(archivedShoppingCartRepository.saveAll(any(Iterable.class))).thenAnswer(invocation -> Flux.fromIterable(invocation.<List<ArchivedShoppingCart>>getArgument(0)));
+        when(shoppingCartRepository.deleteUnchanged(anyList()))
+                .thenAnswer(invocation -> Mono.just((long) invocation.<List<ShoppingCart>>getArgument(0).size()));
+
+        cartArchiveService.archiveOldCarts()
+                .as(StepVerifier::create)
+                .expectNext(3L)
+                .expectComplete()
+                .verify();
+
+        ArgumentCaptor<Iterable<ArchivedShoppingCart>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(archivedShoppingCartRepository, times(2)).saveAll(captor.capture());
+        ArchivedShoppingCart archived = captor.getAllValues().get(0).iterator().next();
+        assertThat(archived.getId()).isEqualTo(carts.get(0).getId());
+        assertThat(archived.getLines()).singleElement()
+                .satisfies(line -> {
+                    assertThat(line.getProductId()).isEqualTo(product.getId());
+                    assertThat(line.getPrice()).isEqualTo(product.getPrice());
+                });
+        verify(shoppingCartRepository, times(2)).deleteUnchanged(anyList());
+        verify(shoppingCartRepository, never()).findByIdInAndInsertDateTimeBefore(anyCollection(), any());
+        carts.forEach(cart -> verify(cartEventHub).publish(CartEvent.deleted(cart.getId())));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_rearchive_carts_changed_before_delete() {
+        Product product = ProductDataProvider.getSimpleProduct();
+        UUID cartId = UUID.randomUUID();
+        LocalDateTime insertDateTime = LocalDateTime.now().minusHours(1);
+        ShoppingCart stale = new ShoppingCart(cartId, Collections.emptyList(), insertDateTime, 1L);
+        ShoppingCart changed = new ShoppingCart(cartId, List.of(product), insertDateTime, 2L);
+
+        when(shoppingCartRepository.findByInsertDateTimeBefore(any())).thenReturn(Flux.just(stale));
+        when(archivedShoppingCartRepository.saveAll(any(Iterable.class))).thenAnswer(invocation -> Flux.fromIterable(invocation.<List<ArchivedShoppingCart>>getArgument(0)));
+        when(shoppingCartRepository.deleteUnchanged(List.of(stale))).thenReturn(Mono.just(0L));
+        when(shoppingCartRepository.findByIdInAndInsertDateTimeBefore(eq(List.of(cartId)), any())).thenReturn(Flux.just(changed));
+        when(shoppingCartRepository.deleteUnchanged(List.of(changed))).thenReturn(Mono.just(1L));
+
+        cartArchiveService.archiveOldCarts()
+                .as(StepVerifier::create)
+                .expectNext(1L)
+                .verifyComplete();
+
+        ArgumentCaptor<Iterable<ArchivedShoppingCart>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(archivedShoppingCartRepository, times(2)).saveAll(captor.capture());
+        assertThat(captor.getAllValues().get(1).iterator().next().getLines()).singleElement()
+                .satisfies(line -> assertThat(line.getProductId()).isEqualTo(product.getId()));
+        verify(cartEventHub, times(1)).publish(CartEvent.deleted(cartId));
+    }
+
+    @Test
+    void should_page_archived_carts_with_cursor() {
+        LocalDateTime from = LocalDateTime.now().minusDays(1);
+        LocalDateTime to = LocalDateTime.now();
+        List<ArchivedShoppingCart> archived = Stream.of(1, 2, 3)
+                .map(i -> new ArchivedShoppingCart(UUID.randomUUID(), List.of(), from.plusHours(i), to))
+                .toList();
+
+        when(archivedShoppingCartRepository.findArchivedCarts(from, to, null, 3)).thenReturn(Flux.fromIterable(archived));
+
+        cartArchiveService.findArchivedCarts(from, to, null, 2)
+                .as(StepVerifier::create)
+                .assertNext(page -> {
+                    assertThat(page.carts()).containsExactlyElementsOf(archived.subList(0, 2));
+                    assertThat(CartCursor.decode(page.nextCursor())).isEqualTo(CartCursor.after(archived.get(1)));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void should_not_delete_when_archiving_fails() {
+        ShoppingCart cart = new ShoppingCart(UUID.randomUUID(), Collections.emptyList(), LocalDateTime.now().minusHours(1));
+
+        when(shoppingCartRepository.findByInsertDateTimeBefore(any())).thenReturn(Flux.just(cart));
+        when(archivedShoppingCartRepository.saveAll(anyIterable())).thenReturn(Flux.error(new RuntimeException("write failed")));
+
+        cartArchiveService.archiveOldCarts()
+                .as(StepVerifier::create)
+                .expectError(RuntimeException.class)
+                .verify();
+
+        verify(shoppingCartRepository, never()).deleteUnchanged(anyList());
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.shoppingservice.service;
+
+import com.example.shoppingservice.ProductDataProvider;
+import com.example.shoppingservice.client.ProductClient;
+import com.example.shoppingservice.events.CartEvent;
+import com.example.shoppingservice.events.CartEventHub;
+import com.example.shoppingservice.model.Product;
+import com.example.shoppingservice.model.ShoppingCart;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CartRepricingJobTest {
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+    @Mock
+    private ProductClient productClient;
+    @Mock
+    private CartEventHub cartEventHub;
+    @Mock
+    private ReactiveBulkOperations bulkOperations;
+    @Mock
+    private BulkWriteResult bulkWriteResult;
+    private CartRepricingJob cartRepricingJob;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        CartRepricingConfig config = new CartRepricingConfig();
+        config.setThrottle(Duration.ZERO);
+        cartRepricingJob = new CartRepricingJob(mongoTemplate, productClient, config, cartEventHub, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void should_return_corrections_only_for_stale_prices() {
+        Product stale = ProductDataProvider.getSimpleProduct();
+        Product current = ProductDataProvider.getSimpleProduct();
+        ShoppingCart cart = new ShoppingCart(UUID.randomUUID(), List.of(stale, current), LocalDateTime.now());
+        Map<UUID, BigDecimal> catalogPrices = Map.of(
+                stale.getId(), BigDecimal.valueOf(12.5),
+                current.getId(), new BigDecimal("10.00"));
+
+        assertThat(CartRepricingJob.priceCorrections(cart, catalogPrices))
+                .containsExactly(new CartRepricingJob.PriceCorrection(cart.getId(), stale.getId(), BigDecimal.valueOf(12.5)));
+    }
+
+    @Test
+    void should_skip_products_missing_from_catalog() {
+        ShoppingCart cart = new ShoppingCart(UUID.randomUUID(), List.of(ProductDataProvider.getSimpleProduct()), LocalDateTime.now());
+
+        assertThat(CartRepricingJob.priceCorrections(cart, Map.of())).isEmpty();
+    }
+
+    @Test
+    void should_apply_corrections_as_unordered_bulk_update() {
+        Product product = ProductDataProvider.getSimpleProduct();
+        Product repriced = ProductDataProvider.getSimpleProduct();
+        repriced.setId(product.getId());
+        repriced.setPrice(BigDecimal.valueOf(20));
+        ShoppingCart cart = new ShoppingCart(UUID.randomUUID(), List.of(product), LocalDateTime.now());
+
+        when(productClient.getAllProducts()).thenReturn(Flux.just(repriced));
+        when(mongoTemplate.find(any(Query.class), eq(ShoppingCart.class))).thenReturn(Flux.just(cart));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ShoppingCart.class)).thenReturn(bulkOperations);
+        when(bulkOperations.updateOne(any(Query.class), any(UpdateDefinition.class))).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(Mono.just(bulkWriteResult));
+        when(bulkWriteResult.getModifiedCount()).thenReturn(1);
+
+        cartRepricingJob.repriceCarts()
+                .as(StepVerifier::create)
+                .expectNext(new CartRepricingJob.RepricingResult(1, 1))
+                .expectComplete()
+                .verify();
+
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(bulkOperations, times(1)).updateOne(any(Query.class), update.capture());
+        assertThat(update.getValue().getUpdateObject().get("$set", Document.class))
+                .containsEntry("products.$[line].price", BigDecimal.valueOf(20));
+        assertThat(update.getValue().getArrayFilters())
+                .singleElement()
+                .satisfies(filter -> assertThat(filter.asDocument()).containsEntry("line._id", product.getId()));
+    }
+
+    @Test
+    void should_publish_repriced_cart_to_watchers() {
+        Product product = ProductDataProvider.getSimpleProduct();
+        Product repriced = ProductDataProvider.getSimpleProduct();
+        repriced.setId(product.getId());
+        repriced.setPrice(BigDecimal.valueOf(20));
+        ShoppingCart cart = new ShoppingCart(UUID.randomUUID(), List.of(product), LocalDateTime.now());
+        ShoppingCart updated = new ShoppingCart(cart.getId(), List.of(repriced), cart.getInsertDateTime());
+
+        when(productClient.getAllProducts()).thenReturn(Flux.just(repriced));
+        when(mongoTemplate.find(any(Query.class), eq(ShoppingCart.class))).thenReturn(Flux.just(cart));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ShoppingCart.class)).thenReturn(bulkOperations);
+        when(bulkOperations.updateOne(any(Query.class), any(UpdateDefinition.class))).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(Mono.just(bulkWriteResult));
+        when(bulkWriteResult.getModifiedCount()).thenReturn(1);
+        when(cartEventHub.isWatched(cart.getId())).thenReturn(true);
+        when(mongoTemplate.findById(cart.getId(), ShoppingCart.class)).thenReturn(Mono.just(updated));
+
+        cartRepricingJob.repriceCarts()
+                .as(StepVerifier::create)
+                .expectNext(new CartRepricingJob.RepricingResult(1, 1))
+                .expectComplete()
+                .verify();
+
+        verify(cartEventHub).publish(CartEvent.updated(updated));
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.shoppingservice.service;
+
+import com.example.shoppingservice.model.CleanupLease;
+import com.example.shoppingservice.model.CleanupNode;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CleanupLeaseManagerTest {
+
+    private static final String NODE_ID = "node-b";
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private CleanupLeaseManager leaseManager;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        CartCleanupConfig config = new CartCleanupConfig();
+        config.setNodeId(NODE_ID);
+        config.setLeaseTtl(Duration.ofSeconds(30));
+        meterRegistry = new SimpleMeterRegistry();
+        leaseManager = new CleanupLeaseManager(mongoTemplate, config, meterRegistry);
+    }
+
+    @Test
+    void should_acquire_lease_when_holder_matches() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(CleanupLease.class)))
+                .thenReturn(Mono.just(new CleanupLease("cart-cleanup", NODE_ID, Instant.now(), Instant.now())));
+
+        leaseManager.tryAcquire("cart-cleanup")
+                .as(StepVerifier::create)
+                .expectNext(true)
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void should_not_acquire_lease_held_by_other_node() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(CleanupLease.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("lease taken")));
+
+        leaseManager.tryAcquire("cart-cleanup")
+                .as(StepVerifier::create)
+                .expectNext(false)
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void should_renew_lease_while_work_runs_and_release_it_afterwards() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(CleanupLease.class)))
+                .thenReturn(Mono.just(new CleanupLease("cart-cleanup", NODE_ID, Instant.now(), Instant.now())));
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(CleanupLease.class)))
+                .thenReturn(Mono.just(mock(UpdateResult.class)));
+
+        StepVerifier.withVirtualTime(() -> leaseManager.withLease("cart-cleanup", Mono.delay(Duration.ofSeconds(35)).thenReturn(7L)))
+                .expectSubscription()
+                .thenAwait(Duration.ofSeconds(35))
+                .expectNext(7L)
+                .verifyComplete();
+
+        verify(mongoTemplate, times(4)).findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(CleanupLease.class));
+        verify(mongoTemplate).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(CleanupLease.class));
+        assertThat(meterRegistry.get("shopping.cart.cleanup.lease.held").tag("lease", "cart-cleanup").gauge().value()).isZero();
+    }
+
+    @Test
+    void should_skip_work_when_lease_not_acquired() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(CleanupLease.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("lease taken")));
+
+        leaseManager.withLease("cart-cleanup", Mono.just(7L))
+                .as(StepVerifier::create)
+                .verifyComplete();
+
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(CleanupLease.class));
+    }
+
+    @Test
+    void should_tag_lease_gauge_by_lease_name() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(CleanupLease.class)))
+                .thenReturn(Mono.just(new CleanupLease("cart-cleanup", NODE_ID, Instant.now(), Instant.now())))
+                .thenReturn(Mono.just(new CleanupLease("other", "node-a", Instant.now(), Instant.now())));
+
+        leaseManager.tryAcquire("cart-cleanup").block();
+        leaseManager.tryAcquire("other").block();
+
+        assertThat(meterRegistry.get("shopping.cart.cleanup.lease.held").tag("lease", "cart-cleanup").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("shopping.cart.cleanup.lease.held").tag("lease", "other").gauge().value()).isZero();
+    }
+
+    @Test
+    void should_resolve_partition_from_live_nodes() {
+        when(mongoTemplate.upsert(any(Query.class), any(UpdateDefinition.class), eq(CleanupNode.class)))
+                .thenReturn(Mono.just(mock(UpdateResult.class)));
+        when(mongoTemplate.find(any(Query.class), eq(CleanupNode.class)))
+                .thenReturn(Flux.just(new CleanupNode("node-a", Instant.now()), new CleanupNode(NODE_ID, Instant.now()),
+                        new CleanupNode("node-c", Instant.now())));
+
+        leaseManager.heartbeatAndResolvePartition()
+                .as(StepVerifier::create)
+                .expectNext(new CartPartition(1, 3))
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void should_assign_every_cart_to_exactly_one_partition() {
+        UUID cartId = UUID.randomUUID();
+
+        long owners = IntStream.range(0, 3)
+                .filter(index -> new CartPartition(index, 3).contains(cartId))
+                .count();
+
+        assertThat(owners).isEqualTo(1);
+        assertThat(CartPartition.ALL.contains(cartId)).isTrue();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.shoppingservice.service;
+
+import com.example.shoppingservice.model.ShoppingCart;
+import com.example.shoppingservice.repository.ShoppingCartRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InMemoryShoppingCartStore {
+
+    private final Map<UUID, ShoppingCart> carts = new ConcurrentHashMap<>();
+
+    private final Duration latency;
+
+    private final boolean enforceVersion;
+
+    InMemoryShoppingCartStore(final Duration latency, final boolean enforceVersion) {
+        this.latency = latency;
+        this.enforceVersion = enforceVersion;
+    }
+
+    ShoppingCartRepository repository() {
+        ShoppingCartRepository repository = mock(ShoppingCartRepository.class);
+        when(repository.findShoppingCartById(any())).thenAnswer(invocation -> find(invocation.getArgument(0)));
+        when(repository.save(any())).thenAnswer(invocation -> save(invocation.getArgument(0)));
+        return repository;
+    }
+
+    UUID create() {
+        UUID cartId = UUID.randomUUID();
+        carts.put(cartId, new ShoppingCart(cartId, new ArrayList<>(), LocalDateTime.now(), 0L));
+        return cartId;
+    }
+
+    ShoppingCart get(final UUID cartId) {
+        return carts.get(cartId);
+    }
+
+    private Mono<ShoppingCart> find(final UUID cartId) {
+        return Mono.fromCallable(() -> copy(carts.get(cartId)))
+                .delayElement(latency);
+    }
+
+    private Mono<ShoppingCart> save(final ShoppingCart cart) {
+        return Mono.fromCallable(() -> copy(carts.compute(cart.getId(), (id, stored) -> {
+                    if (enforceVersion && stored != null && !stored.getVersion().equals(cart.getVersion())) {
+                        throw new OptimisticLockingFailureException("Version " + cart.getVersion() + " is stale");
+                    }
+                    ShoppingCart saved = copy(cart);
+                    saved.setVersion(stored == null ? 0L : stored.getVersion() + 1);
+                    return saved;
+                })))
+                .delayElement(latency);
+    }
+
+    private static ShoppingCart copy(final ShoppingCart cart) {
+        if (cart == null) {
+            return null;
+        }
+        return new ShoppingCart(cart.getId(), new ArrayList<>(cart.getProducts()), cart.getInsertDateTime(),
+                cart.getVersion(), cart.getOwner());
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.shoppingservice.service;
+
+import com.example.shoppingservice.analytics.CartAnalytics;
+import com.example.shoppingservice.client.ProductClient;
+import com.example.shoppingservice.events.CartEventConfig;
+import com.example.shoppingservice.events.CartEventHub;
+import com.example.shoppingservice.lifecycle.LifecycleConfig;
+import com.example.shoppingservice.lifecycle.PendingWorkTracker;
+import com.example.shoppingservice.model.Product;
+import com.example.shoppingservice.model.ShoppingCart;
+import com.example.shoppingservice.model.ShoppingCartRequestBody;
+import com.example.shoppingservice.runtime.CpuBoundScheduler;
+import com.example.shoppingservice.runtime.RuntimeConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Tag("benchmark")
+@Slf4j
+class ShoppingServiceContentionBenchmarkTest {
+
+    private static final int HOT_CARTS = Integer.getInteger("benchmark.hotCarts", 4);
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 32);
+    private static final int OPERATIONS_PER_CLIENT = Integer.getInteger("benchmark.operationsPerClient", 200);
+    private static final Duration STORE_LATENCY = Duration.ofMillis(Long.getLong("benchmark.storeLatencyMs", 1));
+
+    @Test
+    void should_not_lose_updates_under_contention() {
+        Result result = run(true);
+
+        log.info("versioned {}", result);
+        assertThat(result.lostUpdates()).isZero();
+        assertThat(result.failed()).isZero();
+    }
+
+    @Test
+    void should_report_lost_updates_without_version_check() {
+        Result result = run(false);
+
+        log.info("unversioned {}", result);
+        assertThat(result.operations()).isEqualTo((long) CLIENTS * OPERATIONS_PER_CLIENT);
+        assertThat(result.lostUpdates()).isPositive();
+    }
+
+    private Result run(final boolean enforceVersion) {
+        InMemoryShoppingCartStore store = new InMemoryShoppingCartStore(STORE_LATENCY, enforceVersion);
+        ShoppingService shoppingService = new ShoppingService(store.repository(), stubCatalog(), mock(CartAnalytics.class),
+                new PendingWorkTracker(new LifecycleConfig()), new CartEventHub(new CartEventConfig(), new SimpleMeterRegistry()),
+                new CpuBoundScheduler(new RuntimeConfig()), new CartCleanupConfig());
+        List<UUID> hotCarts = new ArrayList<>();
+        Map<UUID, Set<UUID>> expected = new HashMap<>();
+        for (int i = 0; i < HOT_CARTS; i++) {
+            UUID cartId = store.create();
+            hotCarts.add(cartId);
+            expected.put(cartId, ConcurrentHashMap.newKeySet());
+        }
+        Stats stats = new Stats(CLIENTS * OPERATIONS_PER_CLIENT);
+
+        long start = System.nanoTime();
+        Flux.range(0, CLIENTS)
+                .flatMap(client -> new Client(shoppingService, hotCarts, expected, stats).run()
+                        .subscribeOn(Schedulers.parallel()), CLIENTS)
+                .blockLast();
+        long elapsed = System.nanoTime() - start;
+
+        long lostUpdates = hotCarts.stream()
+                .mapToLong(cartId -> difference(expected.get(cartId), productIds(store.get(cartId))))
+                .sum();
+        return stats.result(elapsed, lostUpdates);
+    }
+
+    private static ProductClient stubCatalog() {
+        ProductClient productClient = mock(ProductClient.class);
+        when(productClient.isDefinitelyUnknown(any())).thenReturn(false);
+        when(productClient.getProducts(anyCollection())).thenAnswer(invocation -> {
+            Collection<UUID> productIds = invocation.getArgument(0);
+            return Flux.fromIterable(productIds).map(ShoppingServiceContentionBenchmarkTest::product);
+        });
+        return productClient;
+    }
+
+    private static Product product(final UUID productId) {
+        return Product.builder()
+                .id(productId)
+                .name("Product " + productId)
+                .price(BigDecimal.TEN)
+                .build();
+    }
+
+    private static Set<UUID> productIds(final ShoppingCart cart) {
+        return cart.getProducts().stream()
+                .map(Product::getId)
+                .collect(Collectors.toSet());
+    }
+
+    private static long difference(final Set<UUID> expected, final Set<UUID> actual) {
+        Set<UUID> missing = new HashSet<>(expected);
+        missing.removeAll(actual);
+        Set<UUID> resurrected = new HashSet<>(actual);
+        resurrected.removeAll(expected);
+        return missing.size() + resurrected.size();
+    }
+
+    private static final class Client {
+
+        private final ShoppingService shoppingService;
+        private final List<UUID> hotCarts;
+        private final Map<UUID, Set<UUID>> expected;
+        private final Stats stats;
+        private final Map<UUID, List<UUID>> owned = new HashMap<>();
+
+        private Client(final ShoppingService shoppingService, final List<UUID> hotCarts,
+                       final Map<UUID, Set<UUID>> expected, final Stats stats) {
+            this.shoppingService = shoppingService;
+            this.hotCarts = hotCarts;
+            this.expected = expected;
+            this.stats = stats;
+        }
+
+        private Mono<Void> run() {
+            return Flux.range(0, OPERATIONS_PER_CLIENT)
+                    .concatMap(ignored -> next())
+                    .then();
+        }
+
+        private Mono<Void> next() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            UUID cartId = hotCarts.get(random.nextInt(hotCarts.size()));
+            List<UUID> mine = owned.computeIfAbsent(cartId, id -> new ArrayList<>());
+            int roll = random.nextInt(10);
+            if (roll < 3 && !mine.isEmpty()) {
+                UUID productId = mine.get(random.nextInt(mine.size()));
+                return timed(shoppingService.removeProductsFromShoppingCart(cartId, List.of(productId)), () -> {
+                    mine.remove(productId);
+                    expected.get(cartId).remove(productId);
+                });
+            }
+            UUID productId = UUID.randomUUID();
+            Runnable added = () -> {
+                mine.add(productId);
+                expected.get(cartId).add(productId);
+            };
+            if (roll < 6) {
+                return timed(shoppingService.retrieveShoppingCart(cartId)
+                        .flatMap(cart -> {
+                            List<UUID> products = new ArrayList<>(productIds(cart));
+                            products.add(productId);
+                            return shoppingService.editShoppingCart(cartId, new ShoppingCartRequestBody(products), cart.getVersion());
+                        }), added);
+            }
+            return timed(shoppingService.addProductsToShoppingCart(cartId, List.of(productId)), added);
+        }
+
+        private Mono<Void> timed(final Mono<ShoppingCart> operation, final Runnable onSuccess) {
+            return Mono.defer(() -> {
+                long start = System.nanoTime();
+                return operation
+                        .doOnNext(ignored -> onSuccess.run())
+                        .then()
+                        .onErrorResume(ResponseStatusException.class, err -> {
+                            stats.rejected(err.getStatusCode().value());
+                            return Mono.empty();
+                        })
+                        .onErrorResume(err -> {
+                            stats.failed();
+                            log.warn("Benchmark operation failed", err);
+                            return Mono.empty();
+                        })
+                        .then(Mono.fromRunnable(() -> stats.record(System.nanoTime() - start)));
+            });
+        }
+    }
+
+    private static final class Stats {
+
+        private final AtomicLongArray latencies;
+        private final AtomicLong operations = new AtomicLong();
+        private final AtomicLong conflicts = new AtomicLong();
+        private final AtomicLong preconditionFailures = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+
+        private Stats(final int capacity) {
+            this.latencies = new AtomicLongArray(capacity);
+        }
+
+        private void record(final long nanos) {
+            latencies.set((int) operations.getAndIncrement(), nanos);
+        }
+
+        private void rejected(final int status) {
+            if (status == HttpStatus.PRECONDITION_FAILED.value()) {
+                preconditionFailures.incrementAndGet();
+            } else if (status == HttpStatus.CONFLICT.value()) {
+                conflicts.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+            }
+        }
+
+        private void failed() {
+            failed.incrementAndGet();
+        }
+
+        private Result result(final long elapsedNanos, final long lostUpdates) {
+            int count = (int) operations.get();
+            long[] sorted = new long[count];
+            for (int i = 0; i < count; i++) {
+                sorted[i] = latencies.get(i);
+            }
+            Arrays.sort(sorted);
+            double throughput = count / (elapsedNanos / 1_000_000_000.0);
+            return new Result(count, throughput, percentile(sorted, 0.50), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), percentile(sorted, 1.0), conflicts.get(), preconditionFailures.get(),
+                    failed.get(), lostUpdates);
+        }
+
+        private static Duration percentile(final long[] sorted, final double percentile) {
+            if (sorted.length == 0) {
+                return Duration.ZERO;
+            }
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return Duration.ofNanos(sorted[Math.max(0, index)]);
+        }
+    }
+
+    private record Result(long operations, double throughput, Duration p50, Duration p99, Duration p999, Duration max,
+                          long conflicts, long preconditionFailures, long failed, long lostUpdates) {
+    }
+}
@@ -1,27 +1,42 @@
 package com.example.shoppingservice.service;
 
 import com.example.shoppingservice.ProductDataProvider;
+import com.example.shoppingservice.analytics.CartAnalytics;
 import com.example.shoppingservice.client.ProductClient;
+import com.example.shoppingservice.events.CartEvent;
+import com.example.shoppingservice.events.CartEventConfig;
+import com.example.shoppingservice.events.CartEventHub;
+import com.example.shoppingservice.lifecycle.LifecycleConfig;
+import com.example.shoppingservice.lifecycle.PendingWorkTracker;
 import com.example.shoppingservice.model.*;
 import com.example.shoppingservice.repository.ShoppingCartRepository;
+import com.example.shoppingservice.runtime.CpuBoundScheduler;
+import com.example.shoppingservice.runtime.RuntimeConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class ShoppingServiceTest {
@@ -55,12 +70,21 @@ class ShoppingServiceTest {
     private ShoppingCartRepository shoppingCartRepository;
     @Mock
     private ProductClient productClient;
+    @Mock
+    private CartAnalytics cartAnalytics;
+    private CartCleanupConfig cleanupConfig;
+    private CartEventHub cartEventHub;
     private ShoppingService shoppingService;
 
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
-        shoppingService = new ShoppingService(shoppingCartRepository, productClient);
+        cleanupConfig = new CartCleanupConfig();
+        cartEventHub = new CartEventHub(new CartEventConfig(), new SimpleMeterRegistry());
+        shoppingService = new ShoppingService(shoppingCartRepository, productClient, cartAnalytics,
+                new PendingWorkTracker(new LifecycleConfig()), cartEventHub,
+                new CpuBoundScheduler(new RuntimeConfig()), cleanupConfig);
+        when(shoppingCartRepository.initialiseVersion(any())).thenReturn(Mono.just(true));
     }
 
     @Test
@@ -96,7 +120,7 @@ class ShoppingServiceTest {
         List<Product> productList = Arrays.asList(product1, product2);
         ShoppingCart shoppingCart = new ShoppingCart(UUID.randomUUID(), productList, LocalDateTime.now());
 
-        when(productClient.getAllProducts()).thenReturn(Flux.fromIterable(productList));
+        when(productClient.getProducts(any())).thenReturn(Flux.fromIterable(productList));
         when(shoppingCartRepository.save(any())).thenReturn(Mono.just(shoppingCart));
 
         shoppingService.createShoppingCart(requestBody)
@@ -114,7 +138,7 @@ class ShoppingServiceTest {
     void testCreateShoppingCart_NoMatchingProducts() {
         ShoppingCartRequestBody requestBody = new ShoppingCartRequestBody(List.of(UUID.randomUUID()));
 
-        when(productClient.getAllProducts()).thenReturn(Flux.empty());
+        when(productClient.getProducts(any())).thenReturn(Flux.empty());
 
         shoppingService.createShoppingCart(requestBody)
                 .as(StepVerifier::create)
@@ -126,6 +150,25 @@ class ShoppingServiceTest {
                 .verify();
     }
 
+    @Test
+    void should_reject_definitely_unknown_products_without_fetching_catalog() {
+        ShoppingCartRequestBody requestBody = new ShoppingCartRequestBody(List.of(UUID.randomUUID()));
+
+        when(productClient.isDefinitelyUnknown(requestBody.products())).thenReturn(true);
+
+        shoppingService.createShoppingCart(requestBody)
+                .as(StepVerifier::create)
+                .expectErrorSatisfies(error -> {
+                    assertThat(error)
+                            .isInstanceOf(ResponseStatusException.class)
+                            .hasMessage("404 NOT_FOUND \"No available products found\"");
+                })
+                .verify();
+
+        verify(productClient, never()).getProducts(any());
+        verify(shoppingCartRepository, never()).save(any());
+    }
+
     @Test
     void should_successfully_edit_shopping_cart() {
         UUID cartId = UUID.randomUUID();
@@ -135,7 +178,7 @@ class ShoppingServiceTest {
         ShoppingCart existingCart = new ShoppingCart(cartId, Collections.emptyList(), LocalDateTime.now());
         ShoppingCart updatedCart = new ShoppingCart(cartId, productList, LocalDateTime.now());
 
-        when(productClient.getAllProducts()).thenReturn(Flux.fromIterable(productList));
+        when(productClient.getProducts(any())).thenReturn(Flux.fromIterable(productList));
         when(shoppingCartRepository.findShoppingCartById(cartId)).thenReturn(Mono.just(existingCart));
         when(shoppingCartRepository.save(any())).thenReturn(Mono.just(updatedCart));
 
@@ -155,7 +198,7 @@ class ShoppingServiceTest {
         UUID cartId = UUID.randomUUID();
         ShoppingCart existingCart = new ShoppingCart(cartId, Collections.emptyList(), LocalDateTime.now());
 
-        when(productClient.getAllProducts()).thenReturn(Flux.empty());
+        when(productClient.getProducts(any())).thenReturn(Flux.empty());
         when(shoppingCartRepository.findShoppingCartById(cartId)).thenReturn(Mono.just(existingCart));
 
         shoppingService.editShoppingCart(cartId, new ShoppingCartRequestBody(List.of(UUID.randomUUID())))
@@ -171,10 +214,7 @@ class ShoppingServiceTest {
     @Test
     void should_return_error_when_cart_does_not_exist() {
         UUID cartId = UUID.randomUUID();
-        Product product1 = ProductDataProvider.getSimpleProduct();
-        Product product2 = ProductDataProvider.getSimpleProduct();
-        List<Product> productList = Arrays.asList(product1, product2);
-        when(productClient.getAllProducts()).thenReturn(Flux.fromIterable(productList));
+        when(productClient.getProducts(any())).thenReturn(Flux.empty());
         when(shoppingCartRepository.findShoppingCartById(cartId)).thenReturn(Mono.empty());
 
         shoppingService.editShoppingCart(cartId, new ShoppingCartRequestBody(List.of(UUID.randomUUID())))
@@ -187,6 +227,85 @@ class ShoppingServiceTest {
                 .verify();
     }
 
+    @Test
+    void should_reject_edit_when_version_does_not_match() {
+        UUID cartId = UUID.randomUUID();
+        Product product = ProductDataProvider.getSimpleProduct();
+        ShoppingCart existingCart = new ShoppingCart(cartId, Collections.emptyList(), LocalDateTime.now(), 2L);
+
+        when(productClient.getProducts(any())).thenReturn(Flux.just(product));
+        when(shoppingCartRepository.findShoppingCartById(cartId)).thenReturn(Mono.just(existingCart));
+
+        shoppingService.editShoppingCart(cartId, new ShoppingCartRequestBody(List.of(product.getId())), 1L)
+                .as(StepVerifier::create)
+                .expectErrorSatisfies(error -> assertThat(error)
+                        .isInstanceOf(ResponseStatusException.class)
+                        .hasMessage("412 PRECONDITION_FAILED \"Shopping cart version does not match\""))
+                .verify();
+
+        verify(shoppingCartRepository, never()).save(any());
+    }
+
+    @Test
+    void should_retry_unconditional_change_after_concurrent_modification() {
+        UUID cartId = UUID.randomUUID();
+        Product product = ProductDataProvider.getSimpleProduct();
+        ShoppingCart savedCart = new ShoppingCart(cartId, List.of(product), LocalDateTime.now(), 3L);
+
+        when(productClient.getProducts(any())).thenReturn(Flux.just(product));
+        when(shoppingCartRepository.findShoppingCartById(cartId))
+                .thenAnswer(invocation -> Mono.just(new ShoppingCart(cartId, Collections.emptyList(), LocalDateTime.now(), 1L)));
+        when(shoppingCartRepository.save(any()))
+                .thenReturn(Mono.error(new OptimisticLockingFailureException("conflict")))
+                .thenReturn(Mono.just(savedCart));
+
+        shoppingService.addProductsToShoppingCart(cartId, List.of(product.getId()))
+                .as(StepVerifier::create)
+                .expectNext(savedCart)
+                .verifyComplete();
+
+        verify(shoppingCartRepository, times(2)).findShoppingCartById(cartId);
+        verify(cartAnalytics, times(1)).recordAdded(any(), any());
+    }
+
+    @Test
+    void should_initialise_version_of_legacy_cart_before_updating_it() {
+        UUID cartId = UUID.randomUUID();
+        ShoppingCart legacyCart = new ShoppingCart(cartId, Collections.emptyList(), LocalDateTime.now(), null);
+
+        when(shoppingCartRepository.findShoppingCartById(cartId)).thenReturn(Mono.just(legacyCart));
+        when(shoppingCartRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        shoppingService.removeProductsFromShoppingCart(cartId, List.of(UUID.randomUUID()), 0L)
+                .as(StepVerifier::create)
+                .assertNext(cart -> assertThat(cart.getVersion()).isZero())
+                .verifyComplete();
+
+        ArgumentCaptor<ShoppingCart> saved = ArgumentCaptor.forClass(ShoppingCart.class);
+        verify(shoppingCartRepository).initialiseVersion(cartId);
+        verify(shoppingCartRepository).save(saved.capture());
+        assertThat(saved.getValue().getVersion()).isZero();
+    }
+
+    @Test
+    void should_fail_conditional_change_after_concurrent_modification() {
+        UUID cartId = UUID.randomUUID();
+
+        when(shoppingCartRepository.findShoppingCartById(cartId))
+                .thenReturn(Mono.just(new ShoppingCart(cartId, Collections.emptyList(), LocalDateTime.now(), 1L)));
+        when(shoppingCartRepository.save(any()))
+                .thenReturn(Mono.error(new OptimisticLockingFailureException("conflict")));
+
+        shoppingService.removeProductsFromShoppingCart(cartId, List.of(UUID.randomUUID()), 1L)
+                .as(StepVerifier::create)
+                .expectErrorSatisfies(error -> assertThat(error)
+                        .isInstanceOf(ResponseStatusException.class)
+                        .hasMessage("412 PRECONDITION_FAILED \"Shopping cart was modified concurrently\""))
+                .verify();
+
+        verify(shoppingCartRepository, times(1)).save(any());
+    }
+
     @Test
     void should_add_products_to_shopping_cart() {
         UUID cartId = UUID.randomUUID();
@@ -196,7 +315,7 @@ class ShoppingServiceTest {
         ShoppingCart existingCart = new ShoppingCart(cartId, Collections.singletonList(product1), LocalDateTime.now());
         ShoppingCart updatedCart = new ShoppingCart(cartId, productList, LocalDateTime.now());
 
-        when(productClient.getAllProducts()).thenReturn(Flux.fromIterable(productList));
+        when(productClient.getProducts(any())).thenReturn(Flux.fromIterable(productList));
         when(shoppingCartRepository.findShoppingCartById(cartId)).thenReturn(Mono.just(existingCart));
         when(shoppingCartRepository.save(any())).thenReturn(Mono.just(updatedCart));
 
@@ -217,7 +336,7 @@ class ShoppingServiceTest {
         List<Product> productList = List.of(ProductDataProvider.getSimpleProduct());
         ShoppingCart existingCart = new ShoppingCart(cartId, productList, LocalDateTime.now());
 
-        when(productClient.getAllProducts()).thenReturn(Flux.empty());
+        when(productClient.getProducts(any())).thenReturn(Flux.empty());
         when(shoppingCartRepository.findShoppingCartById(cartId)).thenReturn(Mono.just(existingCart));
 
         Mono<ShoppingCart> result = shoppingService.addProductsToShoppingCart(cartId, Arrays.asList(UUID.randomUUID(), UUID.randomUUID()));
@@ -234,10 +353,9 @@ class ShoppingServiceTest {
     @Test
     void should_return_add_error_not_found_when_shopping_cart_not_found() {
         UUID cartId = UUID.randomUUID();
-        List<Product> productList = List.of(ProductDataProvider.getSimpleProduct());
         List<UUID> productIds = Arrays.asList(UUID.randomUUID(), UUID.randomUUID());
 
-        when(productClient.getAllProducts()).thenReturn(Flux.fromIterable(productList));
+        when(productClient.getProducts(any())).thenReturn(Flux.empty());
         when(shoppingCartRepository.findShoppingCartById(cartId)).thenReturn(Mono.empty());
 
         shoppingService.addProductsToShoppingCart(cartId, productIds)
@@ -342,4 +460,196 @@ class ShoppingServiceTest {
         verify(shoppingCartRepository, never()).deleteShoppingCartById(cartId);
     }
 
-}
\ No newline at end of file
+    @Test
+    void should_merge_source_cart_into_target_and_delete_source() {
+        UUID targetId = UUID.randomUUID();
+        UUID sourceId = UUID.randomUUID();
+        Product shared = ProductDataProvider.getSimpleProduct();
+        Product guestOnly = ProductDataProvider.getSimpleProduct();
+        Product staleShared = Product.builder().id(shared.getId()).price(BigDecimal.ONE).build();
+        ShoppingCart target = new ShoppingCart(targetId, List.of(shared), LocalDateTime.now(), 3L);
+        ShoppingCart source = new ShoppingCart(sourceId, List.of(staleShared, guestOnly, guestOnly), LocalDateTime.now(), 1L);
+
+        when(shoppingCartRepository.findShoppingCartById(sourceId)).thenReturn(Mono.just(source));
+        when(shoppingCartRepository.appendMissingProducts(targetId, List.of(staleShared, guestOnly))).thenReturn(Mono.just(target));
+        when(shoppingCartRepository.deleteByIdAndVersion(sourceId, 1L)).thenReturn(Mono.just(1L));
+
+        shoppingService.mergeShoppingCarts(targetId, sourceId)
+                .as(StepVerifier::create)
+                .expectNextMatches(cart -> {
+                    assertThat(cart.getId()).isEqualTo(targetId);
+                    assertThat(cart.getProducts()).containsExactly(shared, guestOnly);
+                    assertThat(cart.getVersion()).isEqualTo(4L);
+                    return true;
+                })
+                .expectComplete()
+                .verify();
+
+        verify(shoppingCartRepository).deleteByIdAndVersion(sourceId, 1L);
+        verify(shoppingCartRepository, never()).save(any());
+        verify(cartAnalytics).recordAdded(List.of(guestOnly), List.of(shared, guestOnly));
+        verifyNoInteractions(productClient);
+    }
+
+    @Test
+    void should_remerge_when_source_changed_before_delete() {
+        UUID targetId = UUID.randomUUID();
+        UUID sourceId = UUID.randomUUID();
+        Product first = ProductDataProvider.getSimpleProduct();
+        Product addedConcurrently = ProductDataProvider.getSimpleProduct();
+        LocalDateTime insertDateTime = LocalDateTime.now();
+
+        when(shoppingCartRepository.appendMissingProducts(eq(targetId), any())).thenReturn(
+                Mono.just(new ShoppingCart(targetId, List.of(), insertDateTime, 0L)),
+                Mono.just(new ShoppingCart(targetId, List.of(first), insertDateTime, 1L)));
+        when(shoppingCartRepository.findShoppingCartById(sourceId)).thenReturn(
+                Mono.just(new ShoppingCart(sourceId, List.of(first), LocalDateTime.now(), 1L)),
+                Mono.just(new ShoppingCart(sourceId, List.of(first, addedConcurrently), LocalDateTime.now(), 2L)),
+                Mono.just(new ShoppingCart(sourceId, List.of(first, addedConcurrently), LocalDateTime.now(), 2L)));
+        when(shoppingCartRepository.deleteByIdAndVersion(sourceId, 1L)).thenReturn(Mono.just(0L));
+        when(shoppingCartRepository.deleteByIdAndVersion(sourceId, 2L)).thenReturn(Mono.just(1L));
+
+        shoppingService.mergeShoppingCarts(targetId, sourceId)
+                .as(StepVerifier::create)
+                .expectNextMatches(cart -> {
+                    assertThat(cart.getProducts()).containsExactly(first, addedConcurrently);
+                    assertThat(cart.getVersion()).isEqualTo(2L);
+                    return true;
+                })
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void should_report_conflict_when_source_keeps_changing_during_merge() {
+        UUID targetId = UUID.randomUUID();
+        UUID sourceId = UUID.randomUUID();
+        ShoppingCart source = new ShoppingCart(sourceId, List.of(ProductDataProvider.getSimpleProduct()), LocalDateTime.now(), 1L);
+
+        when(shoppingCartRepository.appendMissingProducts(eq(targetId), any()))
+                .thenAnswer(invocation -> Mono.just(new ShoppingCart(targetId, List.of(), LocalDateTime.now(), 0L)));
+        when(shoppingCartRepository.findShoppingCartById(sourceId)).thenAnswer(invocation -> Mono.just(source));
+        when(shoppingCartRepository.deleteByIdAndVersion(sourceId, 1L)).thenReturn(Mono.just(0L));
+
+        shoppingService.mergeShoppingCarts(targetId, sourceId)
+                .as(StepVerifier::create)
+                .expectErrorSatisfies(err -> assertThat(((ResponseStatusException) err).getStatusCode().value()).isEqualTo(409))
+                .verify();
+
+        verify(shoppingCartRepository, times(4)).appendMissingProducts(eq(targetId), any());
+    }
+
+    @Test
+    void should_reject_merging_cart_into_itself() {
+        UUID cartId = UUID.randomUUID();
+
+        shoppingService.mergeShoppingCarts(cartId, cartId)
+                .as(StepVerifier::create)
+                .expectErrorSatisfies(error -> assertThat(error)
+                        .isInstanceOf(ResponseStatusException.class)
+                        .hasMessage("400 BAD_REQUEST \"Cannot merge a shopping cart into itself\""))
+                .verify();
+
+        verifyNoInteractions(shoppingCartRepository);
+    }
+
+    @Test
+    void should_return_owner_page_with_next_cursor() {
+        LocalDateTime now = LocalDateTime.now();
+        ShoppingCart newest = new ShoppingCart(UUID.randomUUID(), List.of(), now, 0L, "owner");
+        ShoppingCart older = new ShoppingCart(UUID.randomUUID(), List.of(), now.minusMinutes(1), 0L, "owner");
+        ShoppingCart oldest = new ShoppingCart(UUID.randomUUID(), List.of(), now.minusMinutes(2), 0L, "owner");
+        when(shoppingCartRepository.findShoppingCartsByOwner("owner", null, 3))
+                .thenReturn(Flux.just(newest, older, oldest));
+
+        shoppingService.findShoppingCartsByOwner("owner", null, 2)
+                .as(StepVerifier::create)
+                .expectNextMatches(page -> {
+                    assertThat(page.carts()).containsExactly(newest, older);
+                    assertThat(CartCursor.decode(page.nextCursor())).isEqualTo(new CartCursor(older.getInsertDateTime(), older.getId()));
+                    return true;
+                })
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void should_return_last_owner_page_without_cursor() {
+        ShoppingCart cart = new ShoppingCart(UUID.randomUUID(), List.of(), LocalDateTime.now(), 0L, "owner");
+        CartCursor cursor = new CartCursor(LocalDateTime.now(), UUID.randomUUID());
+        when(shoppingCartRepository.findShoppingCartsByOwner("owner", cursor, 3)).thenReturn(Flux.just(cart));
+
+        shoppingService.findShoppingCartsByOwner("owner", cursor.encode(), 2)
+                .as(StepVerifier::create)
+                .expectNext(new CartPage(List.of(cart), null))
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void should_delete_carts_older_than_configured_retention() {
+        cleanupConfig.setRetention(Duration.ofHours(2));
+        when(shoppingCartRepository.deleteByInsertDateTimeBefore(any())).thenReturn(Mono.just(3L));
+
+        shoppingService.deleteOldCarts()
+                .as(StepVerifier::create)
+                .expectNext(3L)
+                .expectComplete()
+                .verify();
+
+        ArgumentCaptor<LocalDateTime> threshold = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(shoppingCartRepository).deleteByInsertDateTimeBefore(threshold.capture());
+        assertThat(threshold.getValue()).isBefore(LocalDateTime.now().minusMinutes(119));
+    }
+
+    @Test
+    void should_delete_only_own_partition_using_cart_ids() {
+        CartPartition partition = new CartPartition(0, 2);
+        List<UUID> cartIds = Stream.generate(UUID::randomUUID).limit(10).toList();
+        List<UUID> own = cartIds.stream().filter(partition::contains).toList();
+        when(shoppingCartRepository.findIdsByInsertDateTimeBefore(any())).thenReturn(Flux.fromIterable(cartIds));
+        when(shoppingCartRepository.deleteByIdInAndInsertDateTimeBefore(any(), any()))
+                .thenAnswer(invocation -> Mono.just((long) invocation.<List<UUID>>getArgument(0).size()));
+
+        shoppingService.deleteOldCarts(partition, 100)
+                .as(StepVerifier::create)
+                .expectNext((long) own.size())
+                .expectComplete()
+                .verify();
+
+        verify(shoppingCartRepository).deleteByIdInAndInsertDateTimeBefore(eq(own), any());
+        verify(shoppingCartRepository, never()).findByInsertDateTimeBefore(any());
+    }
+
+    @Test
+    void should_publish_deletion_of_watched_carts_older_than_retention() {
+        ShoppingCart cart = new ShoppingCart(UUID.randomUUID(), List.of(), LocalDateTime.now().minusDays(2), 1L);
+        when(shoppingCartRepository.findByIdInAndInsertDateTimeBefore(eq(Set.of(cart.getId())), any())).thenReturn(Flux.just(cart));
+        when(shoppingCartRepository.deleteByInsertDateTimeBefore(any())).thenReturn(Mono.just(1L));
+
+        cartEventHub.subscribe(cart.getId(), null, Mono.just(cart))
+                .as(StepVerifier::create)
+                .assertNext(event -> assertThat(event.type()).isEqualTo(CartEvent.Type.UPDATED))
+                .then(() -> shoppingService.deleteOldCarts().subscribe())
+                .assertNext(event -> assertThat(event.type()).isEqualTo(CartEvent.Type.DELETED))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void should_publish_deletion_of_partition_carts() {
+        CartPartition partition = new CartPartition(0, 2);
+        UUID cartId = Stream.generate(UUID::randomUUID).filter(partition::contains).findFirst().orElseThrow();
+        ShoppingCart cart = new ShoppingCart(cartId, List.of(), LocalDateTime.now().minusDays(2), 1L);
+        when(shoppingCartRepository.findIdsByInsertDateTimeBefore(any())).thenReturn(Flux.just(cart.getId()));
+        when(shoppingCartRepository.deleteByIdInAndInsertDateTimeBefore(any(), any())).thenReturn(Mono.just(1L));
+
+        cartEventHub.subscribe(cart.getId(), null, Mono.just(cart))
+                .as(StepVerifier::create)
+                .assertNext(event -> assertThat(event.type()).isEqualTo(CartEvent.Type.UPDATED))
+                .then(() -> shoppingService.deleteOldCarts(partition, 100).subscribe())
+                .assertNext(event -> assertThat(event.type()).isEqualTo(CartEvent.Type.DELETED))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+}
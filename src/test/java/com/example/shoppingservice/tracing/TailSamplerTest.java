@@ -0,0 +1,94 @@
+package com.example.shoppingservice.tracing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TailSamplerTest {
+
+    private TracingConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private TailSampler tailSampler;
+    private ObservationRegistry observationRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        config = new TracingConfig();
+        config.setLatencyThreshold(Duration.ofMillis(50));
+        meterRegistry = new SimpleMeterRegistry();
+        tailSampler = new TailSampler(config, meterRegistry);
+        observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(tailSampler);
+    }
+
+    @Test
+    void should_drop_fast_successful_trace() {
+        request(Mono.just("ok"))
+                .as(StepVerifier::create)
+                .expectNext("ok")
+                .verifyComplete();
+
+        assertThat(tailSampler.traces()).isEmpty();
+        assertThat(meterRegistry.counter("shopping.tracing.tail.traces", "decision", "dropped").count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_keep_slow_trace_with_child_spans() {
+        request(Mono.just("ok").delayElement(Duration.ofMillis(80)))
+                .as(StepVerifier::create)
+                .expectNext("ok")
+                .verifyComplete();
+
+        assertThat(tailSampler.traces()).singleElement().satisfies(trace -> {
+            assertThat(trace.name()).isEqualTo("shopping.cart.request");
+            assertThat(trace.error()).isFalse();
+            assertThat(trace.spans()).extracting(CapturedSpan::name)
+                    .containsExactly("shopping.catalog.decode", "shopping.catalog.fetch", "shopping.cart.request");
+            assertThat(trace.spans().get(0).parent()).isEqualTo("shopping.catalog.fetch");
+            assertThat(trace.spans().get(2).tags()).containsEntry("operation", "get");
+        });
+    }
+
+    @Test
+    void should_keep_fast_trace_when_child_span_failed() {
+        request(Mono.error(new IllegalStateException("search-service down")))
+                .as(StepVerifier::create)
+                .verifyError(IllegalStateException.class);
+
+        assertThat(tailSampler.traces()).singleElement().satisfies(trace -> {
+            assertThat(trace.error()).isTrue();
+            assertThat(trace.spans().get(0).error()).contains("search-service down");
+        });
+    }
+
+    @Test
+    void should_notify_exporter_and_bound_retained_traces() {
+        config.setLatencyThreshold(Duration.ZERO);
+        config.setMaxTraces(2);
+        List<CapturedTrace> exported = new CopyOnWriteArrayList<>();
+        tailSampler.onKept(exported::add);
+
+        for (int i = 0; i < 3; i++) {
+            request(Mono.just("ok")).block();
+        }
+
+        assertThat(exported).hasSize(3);
+        assertThat(tailSampler.traces()).extracting(CapturedTrace::id).containsExactly(3L, 2L);
+        assertThat(tailSampler.trace(1)).isEmpty();
+    }
+
+    private Mono<String> request(final Mono<String> body) {
+        Mono<String> decode = ReactiveObservations.observe(body, observationRegistry, "shopping.catalog.decode");
+        Mono<String> fetch = ReactiveObservations.observe(decode, observationRegistry, "shopping.catalog.fetch");
+        return ReactiveObservations.observe(fetch, observationRegistry, "shopping.cart.request", "operation", "get");
+    }
+}